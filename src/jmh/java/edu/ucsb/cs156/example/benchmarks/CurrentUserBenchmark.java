@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserCache;
+
+/**
+ * CurrentUserServiceImpl.getCurrentUser and GrantedAuthoritiesService
+ * inside the real application context, on an in-memory H2 database, with
+ * an OAuth2 login like the one Google produces.
+ *
+ * "cached" is the usual case (the user is in UserCache); "uncached" drops
+ * the cache entry first, so every call runs findByEmail.  Application
+ * logging is set to WARN so the benchmark measures the code, not the
+ * console.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentUserBenchmark {
+
+  static final String EMAIL = "benchmark@ucsb.edu";
+
+  ConfigurableApplicationContext context;
+  CurrentUserServiceImpl currentUserService;
+  GrantedAuthoritiesService grantedAuthoritiesService;
+  UserCache userCache;
+
+  @Setup
+  public void setup() {
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    context = new SpringApplicationBuilder(ExampleApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+        "--spring.main.banner-mode=off",
+        "--logging.level.edu.ucsb.cs156.example=WARN",
+        "--logging.level.sql=WARN",
+        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    currentUserService = context.getBean(CurrentUserServiceImpl.class);
+    grantedAuthoritiesService = context.getBean(GrantedAuthoritiesService.class);
+    userCache = context.getBean(UserCache.class);
+
+    Map<String, Object> attributes = Map.of(
+        "sub", "benchmark",
+        "email", EMAIL,
+        "name", "Benchmark User",
+        "given_name", "Benchmark",
+        "family_name", "User",
+        "email_verified", true,
+        "picture", "https://example.org/benchmark.jpg",
+        "locale", "en",
+        "hd", "ucsb.edu");
+    List<GrantedAuthority> authorities = List.of(
+        new OAuth2UserAuthority(attributes), new SimpleGrantedAuthority("ROLE_MEMBER"));
+    DefaultOAuth2User user = new DefaultOAuth2User(authorities, attributes, "email");
+    SecurityContextHolder.getContext().setAuthentication(new OAuth2AuthenticationToken(user, authorities, "google"));
+
+    // creates the users row once, so "uncached" measures a lookup, not an insert
+    currentUserService.getCurrentUser();
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    context.close();
+  }
+
+  @Benchmark
+  public CurrentUser getCurrentUser_cached() {
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public CurrentUser getCurrentUser_uncached() {
+    userCache.invalidate(EMAIL);
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public Collection<? extends GrantedAuthority> grantedAuthorities() {
+    return grantedAuthoritiesService.getGrantedAuthorities();
+  }
+}
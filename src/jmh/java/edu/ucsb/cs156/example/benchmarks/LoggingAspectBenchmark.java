@@ -0,0 +1,88 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import edu.ucsb.cs156.example.aop.LoggingAspect;
+import edu.ucsb.cs156.example.services.RequestTimings;
+
+/**
+ * Overhead LoggingAspect adds to a controller call: the same trivial
+ * handler called directly and through an AOP proxy with the aspect.
+ *
+ * The aspect's logger is set to WARN, as it would be when request logging
+ * is turned off; with INFO the cost is whatever the appender costs.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+  public static class BenchmarkController {
+    @GetMapping("/api/benchmark")
+    public String get() {
+      return "ok";
+    }
+  }
+
+  BenchmarkController direct;
+  BenchmarkController advised;
+
+  @Setup
+  public void setup() {
+    ((Logger) LoggerFactory.getLogger(LoggingAspect.class)).setLevel(Level.WARN);
+
+    LoggingAspect aspect = new LoggingAspect();
+    ReflectionTestUtils.setField(aspect, "requestTimings", new RequestTimings());
+    AspectJProxyFactory factory = new AspectJProxyFactory(new BenchmarkController());
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    advised = factory.getProxy();
+    direct = new BenchmarkController();
+
+    // the aspect reads the current request, which is thread-local
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/benchmark");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/benchmark");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public String direct() {
+    return direct.get();
+  }
+
+  @Benchmark
+  public String withAspect() {
+    return advised.get();
+  }
+}
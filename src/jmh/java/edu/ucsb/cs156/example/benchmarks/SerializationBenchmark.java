@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.EnergyDrink;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.Vehicle;
+
+/**
+ * Cost of rendering a list of each entity as JSON, as the /all endpoints do.
+ *
+ * The ObjectMapper comes from the same builder Spring Boot uses, so dates
+ * (UCSBDate.localDateTime) are written as ISO strings like in the app.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({ "10", "1000" })
+  int rows;
+
+  ObjectMapper mapper;
+  List<Book> books;
+  List<Student> students;
+  List<Vehicle> vehicles;
+  List<Movie> movies;
+  List<Restaurant> restaurants;
+  List<EnergyDrink> energyDrinks;
+  List<UCSBDate> dates;
+  List<UCSBDiningCommons> commons;
+
+  @Setup
+  public void setup() {
+    mapper = Jackson2ObjectMapperBuilder.json().build();
+    LocalDateTime start = LocalDateTime.parse("2022-01-03T00:00:00");
+    books = list(i -> Book.builder().id(i).title("Title " + i).author("Author " + i).date("2022-01-03").build());
+    students = list(i -> Student.builder().id(i).firstName("First" + i).lastName("Last" + i)
+        .perm(String.valueOf(1000000 + i)).email("student" + i + "@ucsb.edu").phoneNumber("805-555-0100")
+        .major("CMPSC").build());
+    vehicles = list(i -> Vehicle.builder().id(i).brand("Brand" + (i % 20)).model("Model " + i)
+        .licence("LIC" + i).year("2020").build());
+    movies = list(i -> Movie.builder().id(i).movieName("Movie " + i).directorName("Director " + i)
+        .releaseDate("2020-05-01").build());
+    restaurants = list(i -> Restaurant.builder().id(i).name("Restaurant " + i).location("Isla Vista")
+        .hasTakeOut(i % 2 == 0).build());
+    energyDrinks = list(i -> EnergyDrink.builder().id(i).name("Drink " + i).flavor("Flavor " + i)
+        .calories(String.valueOf(i)).build());
+    dates = list(i -> UCSBDate.builder().id(i).quarterYYYYQ("20221").name("Date " + i)
+        .localDateTime(start.plusHours(i)).build());
+    commons = list(i -> UCSBDiningCommons.builder().code("commons" + i).name("Commons " + i)
+        .hasSackMeal(true).hasTakeOutMeal(false).hasDiningCam(true)
+        .latitude(34.41 + i / 10000.0).longitude(-119.84 - i / 10000.0).build());
+  }
+
+  private <T> List<T> list(IntFunction<T> row) {
+    List<T> list = new ArrayList<>(rows);
+    for (int i = 1; i <= rows; i++) {
+      list.add(row.apply(i));
+    }
+    return list;
+  }
+
+  @Benchmark
+  public byte[] books() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(books);
+  }
+
+  @Benchmark
+  public byte[] students() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(students);
+  }
+
+  @Benchmark
+  public byte[] vehicles() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(vehicles);
+  }
+
+  @Benchmark
+  public byte[] movies() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(movies);
+  }
+
+  @Benchmark
+  public byte[] restaurants() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(restaurants);
+  }
+
+  @Benchmark
+  public byte[] energyDrinks() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(energyDrinks);
+  }
+
+  @Benchmark
+  public byte[] ucsbDates() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(dates);
+  }
+
+  @Benchmark
+  public byte[] ucsbDiningCommons() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(commons);
+  }
+}
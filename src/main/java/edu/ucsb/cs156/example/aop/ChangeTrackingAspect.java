@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Records a write in ChangeTokens whenever a repository method that can
+// change rows returns, including the JPQL update/delete and native upsert
+// methods that bypass Hibernate's entity events.  Inside a transaction the
+// token only moves after commit; moving it earlier would let a reader cache
+// the old rows under the new token.
+
+@Aspect
+@Component
+public class ChangeTrackingAspect {
+  // language=PointcutExpression
+  private static final String pointcut = """
+      target(repository) && (
+      execution(* save*(..)) ||
+      execution(* delete*(..)) ||
+      execution(* update*(..)) ||
+      execution(* upsert*(..)))
+      """;
+
+  @Autowired
+  ChangeTokens changeTokens;
+
+  private final Map<Class<?>, Class<?>> entityTypes = new ConcurrentHashMap<>();
+
+  @AfterReturning(pointcut = pointcut, argNames = "repository")
+  public void recordWrite(Repository<?, ?> repository) {
+    Class<?> entityType = entityTypes.computeIfAbsent(repository.getClass(), ChangeTrackingAspect::entityType);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          changeTokens.recordWrite(entityType);
+        }
+      });
+    } else {
+      changeTokens.recordWrite(entityType);
+    }
+  }
+
+  static Class<?> entityType(Class<?> repositoryClass) {
+    for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(repositoryClass)) {
+      Class<?>[] arguments = GenericTypeResolver.resolveTypeArguments(type, Repository.class);
+      if (arguments != null && arguments[0] != null && arguments[0] != Object.class) {
+        return arguments[0];
+      }
+    }
+    throw new IllegalStateException("cannot tell which entity " + repositoryClass.getName() + " stores");
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reports indexes that are declared on an entity but missing from the
+ * database.
+ *
+ * The indexes behind our lookups ({@code findByEmail}, {@code findAllByTitle}
+ * and friends) are declared with {@code @Table(indexes = ...)} and created by
+ * the scripts in {@code db/migration}.  {@code ddl-auto=update} creates them
+ * on a fresh database, but a database that was migrated by hand can miss
+ * one, and nothing else would notice: the query still works, it is just a
+ * full table scan.  At startup we look each declared index up in the JDBC
+ * metadata and log a warning with the statement that would create it.
+ *
+ * An index matches when its leading columns are the declared ones, so an
+ * index created under another name still counts.
+ */
+
+@Slf4j
+@Component
+public class IndexVerifier {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @PostConstruct
+  public void verifyIndexes() {
+    List<String> missing = missingIndexes();
+    if (missing.isEmpty()) {
+      log.info("all declared indexes are present");
+    } else {
+      log.warn("{} declared indexes are missing; create them with:\n{}", missing.size(), String.join("\n", missing));
+    }
+  }
+
+  // one CREATE INDEX statement per declared index the database lacks
+  List<String> missingIndexes() {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    List<String> missing = new ArrayList<>();
+    for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+      Class<?> entityClass = persister.getMappedClass();
+      Table table = entityClass.getAnnotation(Table.class);
+      if (table == null || !(persister instanceof AbstractEntityPersister entityPersister)) {
+        continue;
+      }
+      String tableName = entityPersister.getRootTableName();
+      for (Index index : table.indexes()) {
+        List<String> columns = columnNames(entityPersister, index.columnList());
+        if (!hasIndex(tableName, columns)) {
+          missing.add("CREATE INDEX %s ON %s (%s);".formatted(index.name(), tableName, String.join(", ", columns)));
+        }
+      }
+    }
+    return missing;
+  }
+
+  // columnList names the entity's properties; map them to physical columns
+  private static List<String> columnNames(AbstractEntityPersister persister, String columnList) {
+    List<String> columns = new ArrayList<>();
+    for (String name : columnList.split(",")) {
+      String property = name.trim().split("\\s+")[0];
+      try {
+        columns.addAll(Arrays.asList(persister.getPropertyColumnNames(property)));
+      } catch (MappingException e) {
+        columns.add(property);
+      }
+    }
+    return columns;
+  }
+
+  private boolean hasIndex(String table, List<String> columns) {
+    Map<String, List<String>> indexes = jdbcTemplate.execute((ConnectionCallback<Map<String, List<String>>>) connection -> {
+      DatabaseMetaData metaData = connection.getMetaData();
+      String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+          : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+      return indexColumns(metaData, name);
+    });
+    return indexes.values().stream().anyMatch(indexed -> startsWith(indexed, columns));
+  }
+
+  // index name -> its columns in key order
+  private static Map<String, List<String>> indexColumns(DatabaseMetaData metaData, String table) throws SQLException {
+    Map<String, Map<Short, String>> byPosition = new TreeMap<>();
+    try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, true)) {
+      while (rs.next()) {
+        String index = rs.getString("INDEX_NAME");
+        String column = rs.getString("COLUMN_NAME");
+        if (index != null && column != null) {
+          byPosition.computeIfAbsent(index, k -> new TreeMap<>()).put(rs.getShort("ORDINAL_POSITION"), column);
+        }
+      }
+    }
+    Map<String, List<String>> indexes = new TreeMap<>();
+    byPosition.forEach((index, columns) -> indexes.put(index, new ArrayList<>(columns.values())));
+    return indexes;
+  }
+
+  static boolean startsWith(List<String> indexed, List<String> wanted) {
+    if (indexed.size() < wanted.size()) {
+      return false;
+    }
+    for (int i = 0; i < wanted.size(); i++) {
+      if (!indexed.get(i).equalsIgnoreCase(wanted.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Extra tags for the {@code http.server.requests} timers.
+ *
+ * Spring Boot tags each request with its HTTP method, URI pattern and
+ * status.  Here we add the controller class and handler method that served
+ * it, so the Prometheus data can be grouped the same way as the code.
+ * Every request gets both tags (with value {@code none} when no controller
+ * method handled it), because Prometheus needs the same tag keys on all
+ * series of a metric.
+ *
+ * The other metrics we rely on come from Spring Boot's auto-configuration
+ * once the dependencies are present:
+ * {@code spring.data.repository.invocations} (repository methods),
+ * {@code hikaricp.*} (connection pool), {@code hibernate.*} (session and
+ * query statistics, needs {@code hibernate.generate_statistics}) and
+ * {@code jvm.*} (GC and heap).
+ */
+
+@Configuration
+public class MetricsConfig {
+
+  private static final Tag NO_CONTROLLER = Tag.of("controller", "none");
+  private static final Tag NO_HANDLER = Tag.of("handler", "none");
+
+  @Bean
+  public WebMvcTagsContributor handlerTagsContributor() {
+    return new WebMvcTagsContributor() {
+      @Override
+      public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+          Throwable exception) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+          return Tags.of(
+              Tag.of("controller", handlerMethod.getBeanType().getSimpleName()),
+              Tag.of("handler", handlerMethod.getMethod().getName()));
+        }
+        return Tags.of(NO_CONTROLLER, NO_HANDLER);
+      }
+
+      @Override
+      public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+      }
+    };
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence-based id generator shared by all entities.
+ *
+ * Each table gets its own sequence named {@code <table>_seq}.  Ids are
+ * handed out from blocks of {@link #ALLOCATION_SIZE} values (pooled
+ * optimizer), so Hibernate only goes to the database once per block and,
+ * unlike IDENTITY columns, can batch the inserts.
+ *
+ * The block size is fixed rather than configurable because it must equal
+ * the sequences' {@code INCREMENT BY}, which V5__Add_pooled_id_sequences.sql
+ * sets to 50; if the two disagree, the pooled optimizer hands out ids
+ * that collide.  Changing it means changing the sequences too.
+ *
+ * Usage on an entity:
+ *
+ * <pre>
+ * &#64;GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequenceGenerator.NAME)
+ * &#64;GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = PooledSequenceGenerator.STRATEGY)
+ * </pre>
+ *
+ * @see SequenceAligner
+ */
+
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+  public static final String NAME = "pooled_sequence";
+  public static final String STRATEGY = "edu.ucsb.cs156.example.config.PooledSequenceGenerator";
+
+  public static final int ALLOCATION_SIZE = 50;
+  public static final String SEQUENCE_SUFFIX = "_seq";
+
+  @Override
+  public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+    if (!params.containsKey(SEQUENCE_PARAM)) {
+      params.setProperty(SEQUENCE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE) + SEQUENCE_SUFFIX);
+    }
+    params.putIfAbsent(INCREMENT_PARAM, Integer.toString(ALLOCATION_SIZE));
+    params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+    super.configure(type, params, serviceRegistry);
+  }
+
+  public String getSequenceName() {
+    return getDatabaseStructure().getPhysicalName().render();
+  }
+
+  public int getAllocationSize() {
+    return getDatabaseStructure().getIncrementSize();
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes sure every {@link PooledSequenceGenerator} sequence is ahead of
+ * the ids already stored in its table.
+ *
+ * Tables created before the switch from IDENTITY columns already hold
+ * rows, while {@code ddl-auto=update} creates their new sequences starting
+ * at 1.  At startup we compare each sequence with {@code max(id)} and
+ * restart it past the existing rows when needed, so the same code works on
+ * a fresh database, an old H2 file and the PostgreSQL database in
+ * production.
+ */
+
+@Slf4j
+@Component
+public class SequenceAligner {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @PostConstruct
+  public void alignSequences() {
+    SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+    for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+      if (persister.getIdentifierGenerator() instanceof PooledSequenceGenerator generator
+          && persister instanceof AbstractEntityPersister entityPersister) {
+        align(dialect, generator, entityPersister.getRootTableName(),
+            entityPersister.getRootTableIdentifierColumnNames()[0]);
+      }
+    }
+  }
+
+  // The pooled optimizer hands out (value - allocationSize, value] for each
+  // sequence value, so the next value must be at least max(id) + allocationSize.
+  // Reading nextval costs one block of ids; gaps are harmless.
+  private void align(Dialect dialect, PooledSequenceGenerator generator, String table, String idColumn) {
+    String sequence = generator.getSequenceName();
+    long maxId = jdbcTemplate.queryForObject(
+        "select coalesce(max(%s), 0) from %s".formatted(idColumn, table), Long.class);
+    if (maxId == 0) {
+      return;
+    }
+    long next = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class);
+    long required = maxId + generator.getAllocationSize();
+    if (next < required) {
+      log.info("restarting sequence {} at {} (max id in {} is {})", sequence, required, table, maxId);
+      jdbcTemplate.execute("alter sequence %s restart with %d".formatted(sequence, required));
+    }
+  }
+}
@@ -1,23 +1,50 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import net.bytebuddy.implementation.bytecode.Throw;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 public abstract class ApiController {
+  private static final String CURSOR_PREFIX = "k:";
+
+  // bounds for date ranges the client leaves open
+  protected static final LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+  protected static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+  protected static final LocalDateTime EARLIEST_DATE_TIME = EARLIEST_DATE.atStartOfDay();
+  protected static final LocalDateTime LATEST_DATE_TIME = LATEST_DATE.atTime(23, 59, 59);
+
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Value("${app.paging.defaultPageSize:50}")
+  private int defaultPageSize = 50;
+
+  @Value("${app.paging.maxPageSize:500}")
+  private int maxPageSize = 500;
+
   protected CurrentUser getCurrentUser() {
     return currentUserService.getCurrentUser();
   }
@@ -26,6 +53,139 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  // Keyset paging: the client passes back the opaque nextCursor of the
+  // previous page, and the controller asks the repository for the rows
+  // whose key is greater than the decoded cursor.  One extra row is
+  // requested so that we know whether there is a next page without a
+  // count query.
+
+  protected int pageSize(Integer requested) {
+    if (requested == null) {
+      return defaultPageSize;
+    }
+    if (requested < 1 || requested > maxPageSize) {
+      throw new BadRequestException("size must be between 1 and %d".formatted(maxPageSize));
+    }
+    return requested;
+  }
+
+  protected Pageable keysetPageable(int size) {
+    return PageRequest.of(0, size + 1);
+  }
+
+  protected String decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      if (decoded.startsWith(CURSOR_PREFIX)) {
+        return decoded.substring(CURSOR_PREFIX.length());
+      }
+    } catch (IllegalArgumentException e) {
+      // fall through
+    }
+    throw new BadRequestException("invalid cursor %s".formatted(cursor));
+  }
+
+  protected long decodeIdCursor(String cursor) {
+    String key = decodeCursor(cursor);
+    if (key == null) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(key);
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("invalid cursor %s".formatted(cursor));
+    }
+  }
+
+  protected static String encodeCursor(Object key) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((CURSOR_PREFIX + key).getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Pages in (date, id) order use the date and id of the last row as the
+  // cursor; the first page starts with the rows dated `from`.
+  protected record DateIdCursor(LocalDate date, long id) {
+  }
+
+  protected DateIdCursor decodeDateIdCursor(String cursor, LocalDate from) {
+    String key = decodeCursor(cursor);
+    if (key == null) {
+      return new DateIdCursor(from, -1L);
+    }
+    String[] parts = key.split(",", 2);
+    try {
+      return new DateIdCursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+    } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      throw new BadRequestException("invalid cursor %s".formatted(cursor));
+    }
+  }
+
+  // from and to, inclusive; either may be left open
+  protected record DateRange(LocalDate from, LocalDate to) {
+  }
+
+  protected static DateRange dateRange(LocalDate from, LocalDate to) {
+    DateRange range = new DateRange(from == null ? EARLIEST_DATE : from, to == null ? LATEST_DATE : to);
+    if (range.from().isAfter(range.to())) {
+      throw new BadRequestException("from must not be after to");
+    }
+    return range;
+  }
+
+  // The same for pages in (date and time, id) order.
+  protected record DateTimeIdCursor(LocalDateTime dateTime, long id) {
+  }
+
+  protected DateTimeIdCursor decodeDateTimeIdCursor(String cursor, LocalDateTime from) {
+    String key = decodeCursor(cursor);
+    if (key == null) {
+      return new DateTimeIdCursor(from, -1L);
+    }
+    String[] parts = key.split(",", 2);
+    try {
+      return new DateTimeIdCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+    } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      throw new BadRequestException("invalid cursor %s".formatted(cursor));
+    }
+  }
+
+  protected record DateTimeRange(LocalDateTime from, LocalDateTime to) {
+  }
+
+  protected static DateTimeRange dateTimeRange(LocalDateTime from, LocalDateTime to) {
+    DateTimeRange range = new DateTimeRange(from == null ? EARLIEST_DATE_TIME : from, to == null ? LATEST_DATE_TIME : to);
+    if (range.from().isAfter(range.to())) {
+      throw new BadRequestException("from must not be after to");
+    }
+    return range;
+  }
+
+  protected <T> KeysetPage<T> keysetPage(List<T> rows, int size, Function<T, Object> key) {
+    if (rows.size() <= size) {
+      return new KeysetPage<>(rows, rows.size(), null);
+    }
+    List<T> content = rows.subList(0, size);
+    return new KeysetPage<>(content, size, encodeCursor(key.apply(content.get(size - 1))));
+  }
+
+  // Row checks used by the bulk endpoints; each adds a message for a
+  // missing field, mirroring the required @RequestParams of /post.
+
+  protected static void requireText(List<String> errors, String field, String value) {
+    if (value == null || value.isBlank()) {
+      errors.add("%s is required".formatted(field));
+    }
+  }
+
+  protected static void requireValue(List<String> errors, String field, Object value) {
+    if (value == null) {
+      errors.add("%s is required".formatted(field));
+    }
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -34,4 +194,25 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  @ExceptionHandler({ BadRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  // The database refused the write, most often because the key is taken.
+  // The exception's own message is SQL, so it is logged, not returned.
+  @ExceptionHandler({ DataIntegrityViolationException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+    log.info("write rejected by the database: {}", e.getMostSpecificCause().getMessage());
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "request conflicts with data already stored"
+    );
+  }
 }
@@ -3,6 +3,13 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Book;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.SearchService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -21,10 +28,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.io.IOException;
 
 @Api(description = "Book")
 @RequestMapping("/api/book")
@@ -35,14 +51,89 @@ public class BookController extends ApiController {
     @Autowired
     BookRepository bookRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    EntityExportService entityExportService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    AutocompleteService autocompleteService;
+
+    @Autowired
+    SearchService searchService;
+
     @ApiOperation(value = "List all books")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Book> allBook() {
+    public Iterable<Book> allBook(WebRequest request) {
+        if (changeTokens.checkNotModified(Book.class, request)) {
+            return null;
+        }
         Iterable<Book> books = bookRepository.findAll();
         return books;
     }
 
+    @ApiOperation(value = "Search books by title and author, best matches first; also matches word prefixes and near misspellings")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public List<Book> searchBooks(
+            @ApiParam("search text") @RequestParam String q,
+            @ApiParam("maximum number of results") @RequestParam(required = false) Integer size) {
+        return searchService.searchBooks(q, pageSize(size));
+    }
+
+    @ApiOperation(value = "Suggest values of a field that start with the given text, most common first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/suggest")
+    public List<String> suggestBooks(
+            @ApiParam("field to suggest values of: title or author") @RequestParam String field,
+            @ApiParam("text typed so far") @RequestParam(defaultValue = "") String prefix,
+            @ApiParam("maximum number of suggestions") @RequestParam(required = false) Integer size) {
+        return autocompleteService.suggest(Book.class, field, prefix, size);
+    }
+
+    @ApiOperation(value = "List books published between two dates, oldest first, one page at a time; a date of just a year or year and month counts as its first day")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public KeysetPage<Book> booksPublishedBetween(
+            @ApiParam("earliest date, inclusive, as yyyy-mm-dd; omit for no lower bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @ApiParam("latest date, inclusive, as yyyy-mm-dd; omit for no upper bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        DateRange range = dateRange(from, to);
+        DateIdCursor after = decodeDateIdCursor(cursor, range.from());
+        List<Book> rows = bookRepository.findPublishedBetween(after.date(), after.id(), range.to(), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, book -> book.getPublishedOn() + "," + book.getId());
+    }
+
+    @ApiOperation(value = "List books one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Book> pageBooks(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<Book> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, Book::getId);
+    }
+
+    @ApiOperation(value = "Export all books as newline-delimited JSON, streamed in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export.ndjson")
+    @Transactional(readOnly = true)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(EntityExportService.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try (Stream<Book> rows = bookRepository.streamAllByOrderByIdAsc()) {
+            entityExportService.writeNdjson(rows, response.getOutputStream());
+        }
+    }
+
     @ApiOperation(value = "Get a single book")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -73,10 +164,31 @@ public class BookController extends ApiController {
         book.setDate(date);
 
         Book savedBook = bookRepository.save(book);
+        autocompleteService.index(savedBook);
+        searchService.index(savedBook);
 
         return savedBook;
     }
 
+    @ApiOperation(value = "Create many books from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<Book> bulkBooks(
+            @ApiParam("JSON array of books; ids are ignored") @RequestBody List<Book> incoming) {
+        BulkResult<Book> result = bulkInsertService.createAll(incoming, BookController::validate, book -> book.setId(0), bookRepository);
+        result.createdRows().forEach(searchService::index);
+        result.createdRows().forEach(autocompleteService::index);
+        return result;
+    }
+
+    private static List<String> validate(Book book) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "title", book.getTitle());
+        requireText(errors, "author", book.getAuthor());
+        requireText(errors, "date", book.getDate());
+        return errors;
+    }
+
     // Rest of the controller methods...
 
     @ApiOperation(value = "Delete a Book")
@@ -84,10 +196,11 @@ public class BookController extends ApiController {
     @DeleteMapping("")
     public Object deleteBook(
             @ApiParam("id") @RequestParam Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Book.class, id));
-
-        bookRepository.delete(book);
+        if (bookRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(Book.class, id);
+        }
+        searchService.removeBook(id);
+        autocompleteService.remove(Book.class, id);
         return genericMessage("Book with id %s deleted".formatted(id));
     }
 
@@ -98,15 +211,16 @@ public class BookController extends ApiController {
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Book incoming) {
 
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Book.class, id));
-
-        book.setTitle(incoming.getTitle());
-        book.setAuthor(incoming.getAuthor());
-        book.setDate(incoming.getDate());
-
-        bookRepository.save(book);
-
-        return book;
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (bookRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(Book.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        searchService.index(incoming);
+        autocompleteService.index(incoming);
+
+        return incoming;
     }
 }
\ No newline at end of file
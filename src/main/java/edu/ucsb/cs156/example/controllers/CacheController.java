@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.services.CacheStatisticsService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+@Api(description = "Second-level cache statistics (admin only)")
+@RequestMapping("/api/admin/cache")
+@RestController
+public class CacheController extends ApiController {
+    @Autowired
+    CacheStatisticsService cacheStatisticsService;
+
+    @ApiOperation(value = "Get hit/miss counts for each cache region and for the query cache")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> stats() {
+        return cacheStatisticsService.getStats();
+    }
+}
@@ -3,6 +3,10 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.EnergyDrink;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.EnergyDrinkRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -20,6 +25,9 @@ import io.swagger.annotations.ApiParam;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import javax.validation.Valid;
+import java.time.Instant;
+import java.util.List;
+import java.util.ArrayList;
 
 
 
@@ -30,14 +38,34 @@ public class EnergyDrinkController extends ApiController{
     @Autowired
     EnergyDrinkRepository energydrinkRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
     @ApiOperation(value="List all energy drinks")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<EnergyDrink> allEnergyDrinks(){
+    public Iterable<EnergyDrink> allEnergyDrinks(WebRequest request){
+        if (changeTokens.checkNotModified(EnergyDrink.class, request)) {
+            return null;
+        }
         Iterable<EnergyDrink> energydrinks = energydrinkRepository.findAll();
         return energydrinks;
     }
 
+    @ApiOperation(value = "List energy drinks one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<EnergyDrink> pageEnergyDrinks(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<EnergyDrink> rows = energydrinkRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, EnergyDrink::getId);
+    }
+
     @ApiOperation(value="Create a new energy drink")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -55,6 +83,22 @@ public class EnergyDrinkController extends ApiController{
         return savedEnergyDrink;
     }
 
+    @ApiOperation(value = "Create many energy drinks from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<EnergyDrink> bulkEnergyDrinks(
+            @ApiParam("JSON array of energy drinks; ids are ignored") @RequestBody List<EnergyDrink> incoming) {
+        return bulkInsertService.createAll(incoming, EnergyDrinkController::validate, energyDrink -> energyDrink.setId(0), energydrinkRepository);
+    }
+
+    private static List<String> validate(EnergyDrink energyDrink) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "name", energyDrink.getName());
+        requireText(errors, "flavor", energyDrink.getFlavor());
+        requireText(errors, "calories", energyDrink.getCalories());
+        return errors;
+    }
+
     @ApiOperation(value="Get a single energy drink")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -73,13 +117,15 @@ public class EnergyDrinkController extends ApiController{
         @ApiParam("id") @RequestParam Long id,
         @RequestBody @Valid EnergyDrink incoming) {
 
-        EnergyDrink energydrink = energydrinkRepository.findById(id).orElseThrow(()-> new EntityNotFoundException(EnergyDrink.class, id));
-        energydrink.setName(incoming.getName());
-        energydrink.setFlavor(incoming.getFlavor());
-        energydrink.setCalories(incoming.getCalories());
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (energydrinkRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(EnergyDrink.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
 
-        energydrinkRepository.save(energydrink);
-        return energydrink;
+        return incoming;
     }
 
     @ApiOperation(value="Delete an energy drink")
@@ -88,10 +134,9 @@ public class EnergyDrinkController extends ApiController{
     public Object deleteEnergyDrink(
         @ApiParam("id") @RequestParam Long id
     ) {
-        EnergyDrink energydrink = energydrinkRepository.findById(id)
-                .orElseThrow(()-> new EntityNotFoundException(EnergyDrink.class, id));
-        
-        energydrinkRepository.delete(energydrink);
+        if (energydrinkRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(EnergyDrink.class, id);
+        }
         return genericMessage("EnergyDrink with id %s deleted".formatted(id));
     }
 }
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.models.RouteTiming;
+import edu.ucsb.cs156.example.services.RequestTimings;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+@Api(description = "Request latency per route (admin only)")
+@RequestMapping("/api/admin/metrics")
+@RestController
+public class MetricsController extends ApiController {
+    @Autowired
+    RequestTimings requestTimings;
+
+    @ApiOperation(value = "Get request count, mean, p50/p95/p99 and max latency (ms) for each route")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/requests")
+    public List<RouteTiming> requests() {
+        return requestTimings.getTimings();
+    }
+
+    @ApiOperation(value = "Clear the recorded request timings")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping("/requests")
+    public Object resetRequests() {
+        requestTimings.reset();
+        return genericMessage("request timings cleared");
+    }
+}
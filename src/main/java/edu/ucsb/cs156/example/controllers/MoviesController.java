@@ -3,11 +3,17 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Movie;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.MovieRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.SearchService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +23,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ArrayList;
 
 
 @Api(description = "Movie")
@@ -29,14 +40,61 @@ public class MoviesController extends ApiController {
     @Autowired
     MovieRepository movieRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    SearchService searchService;
+
     @ApiOperation(value = "List all movies")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Movie> allMovie() {
+    public Iterable<Movie> allMovie(WebRequest request) {
+        if (changeTokens.checkNotModified(Movie.class, request)) {
+            return null;
+        }
         Iterable<Movie> movies = movieRepository.findAll();
         return movies;
     }
 
+    @ApiOperation(value = "Search movies by movie name and director, best matches first; also matches word prefixes and near misspellings")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public List<Movie> searchMovies(
+            @ApiParam("search text") @RequestParam String q,
+            @ApiParam("maximum number of results") @RequestParam(required = false) Integer size) {
+        return searchService.searchMovies(q, pageSize(size));
+    }
+
+    @ApiOperation(value = "List movies released between two dates, oldest first, one page at a time; a releaseDate of just a year or year and month counts as its first day")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/range")
+    public KeysetPage<Movie> moviesReleasedBetween(
+            @ApiParam("earliest date, inclusive, as yyyy-mm-dd; omit for no lower bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @ApiParam("latest date, inclusive, as yyyy-mm-dd; omit for no upper bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        DateRange range = dateRange(from, to);
+        DateIdCursor after = decodeDateIdCursor(cursor, range.from());
+        List<Movie> rows = movieRepository.findReleasedBetween(after.date(), after.id(), range.to(), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, movie -> movie.getReleasedOn() + "," + movie.getId());
+    }
+
+    @ApiOperation(value = "List movies one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Movie> pageMovies(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<Movie> rows = movieRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, Movie::getId);
+    }
+
     @ApiOperation(value = "Get a single movie")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -64,18 +122,37 @@ public class MoviesController extends ApiController {
         movie.setReleaseDate(releaseDate);
 
         Movie savedMovie = movieRepository.save(movie);
+        searchService.index(savedMovie);
         return savedMovie;
     }
 
+    @ApiOperation(value = "Create many movies from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<Movie> bulkMovies(
+            @ApiParam("JSON array of movies; ids are ignored") @RequestBody List<Movie> incoming) {
+        BulkResult<Movie> result = bulkInsertService.createAll(incoming, MoviesController::validate, movie -> movie.setId(0), movieRepository);
+        result.createdRows().forEach(searchService::index);
+        return result;
+    }
+
+    private static List<String> validate(Movie movie) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "movieName", movie.getMovieName());
+        requireText(errors, "directorName", movie.getDirectorName());
+        requireText(errors, "releaseDate", movie.getReleaseDate());
+        return errors;
+    }
+
     @ApiOperation(value = "Delete a Movie")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteMovie(
             @ApiParam("id") @RequestParam Long id) {
-        Movie movie = movieRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Movie.class, id));
-
-        movieRepository.delete(movie);
+        if (movieRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(Movie.class, id);
+        }
+        searchService.removeMovie(id);
         return genericMessage("Movie with id %s deleted".formatted(id));
     }
 
@@ -86,14 +163,15 @@ public class MoviesController extends ApiController {
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Movie incoming) {
 
-        Movie movie = movieRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Movie.class, id));
-        
-        movie.setDirectorName(incoming.getDirectorName());
-        movie.setMovieName(incoming.getMovieName());
-        movie.setReleaseDate(incoming.getReleaseDate());
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (movieRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(Movie.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        searchService.index(incoming);
 
-        movieRepository.save(movie);
-        return movie;
+        return incoming;
     }
 }
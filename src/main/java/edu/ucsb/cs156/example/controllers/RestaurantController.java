@@ -3,6 +3,11 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -20,8 +25,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.time.Instant;
+import java.util.List;
+import java.util.ArrayList;
 
 @Api(description = "Restaurant")
 @RequestMapping("/api/restaurants")
@@ -32,14 +41,47 @@ public class RestaurantController extends ApiController {
     @Autowired
     RestaurantRepository restaurantRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    AutocompleteService autocompleteService;
+
     @ApiOperation(value = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurantss() {
+    public Iterable<Restaurant> allRestaurantss(WebRequest request) {
+        if (changeTokens.checkNotModified(Restaurant.class, request)) {
+            return null;
+        }
         Iterable<Restaurant> restaurants = restaurantRepository.findAll();
         return restaurants;
     }
 
+    @ApiOperation(value = "Suggest values of a field that start with the given text, most common first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/suggest")
+    public List<String> suggestRestaurants(
+            @ApiParam("field to suggest values of: name or location") @RequestParam String field,
+            @ApiParam("text typed so far") @RequestParam(defaultValue = "") String prefix,
+            @ApiParam("maximum number of suggestions") @RequestParam(required = false) Integer size) {
+        return autocompleteService.suggest(Restaurant.class, field, prefix, size);
+    }
+
+    @ApiOperation(value = "List restaurants one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Restaurant> pageRestaurants(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<Restaurant> rows = restaurantRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, Restaurant::getId);
+    }
+
     @ApiOperation(value = "Get a restaurant")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -66,19 +108,37 @@ public class RestaurantController extends ApiController {
         restaurant.setHasTakeOut(hasTakeOut);
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        autocompleteService.index(savedRestaurant);
 
         return savedRestaurant;
     }
 
+    @ApiOperation(value = "Create many restaurants from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<Restaurant> bulkRestaurants(
+            @ApiParam("JSON array of restaurants; ids are ignored") @RequestBody List<Restaurant> incoming) {
+        BulkResult<Restaurant> result = bulkInsertService.createAll(incoming, RestaurantController::validate, restaurant -> restaurant.setId(0), restaurantRepository);
+        result.createdRows().forEach(autocompleteService::index);
+        return result;
+    }
+
+    private static List<String> validate(Restaurant restaurant) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "name", restaurant.getName());
+        requireText(errors, "location", restaurant.getLocation());
+        return errors;
+    }
+
     @ApiOperation(value = "Delete a restaurant")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteRestaurant(
             @ApiParam("id") @RequestParam Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        restaurantRepository.delete(restaurant);
+        if (restaurantRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(Restaurant.class, id);
+        }
+        autocompleteService.remove(Restaurant.class, id);
         return genericMessage("Restaurant with id %s deleted".formatted(id));
     }
 
@@ -89,16 +149,15 @@ public class RestaurantController extends ApiController {
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Restaurant incoming) {
 
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (restaurantRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(Restaurant.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        autocompleteService.index(incoming);
 
-        restaurant.setName(incoming.getName());  
-        restaurant.setLocation(incoming.getLocation());
-        restaurant.setHasTakeOut(incoming.getHasTakeOut());
-
-        restaurantRepository.save(restaurant);
-
-        return restaurant;
+        return incoming;
     }
 }
@@ -3,6 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Student;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.ChangeFeedService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -20,6 +31,12 @@ import io.swagger.annotations.ApiParam;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.io.IOException;
 
 
 
@@ -30,14 +47,82 @@ public class StudentController extends ApiController{
     @Autowired
     StudentRepository studentRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    EntityExportService entityExportService;
+
+    @Autowired
+    FieldProjectionService fieldProjectionService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    AutocompleteService autocompleteService;
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+
     @ApiOperation(value="List all students")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Student> allStudents(){
+    public Iterable<?> allStudents(
+            @ApiParam("comma separated columns to return, e.g. id,lastName; omit for all") @RequestParam(required = false) String fields,
+            WebRequest request){
+        if (changeTokens.checkNotModified(Student.class, request)) {
+            return null;
+        }
+        if (fields != null) {
+            return fieldProjectionService.findAll(Student.class, fields);
+        }
         Iterable<Student> students = studentRepository.findAll();
         return students;
     }
 
+    @ApiOperation(value = "Suggest values of a field that start with the given text, most common first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/suggest")
+    public List<String> suggestStudents(
+            @ApiParam("field to suggest values of: lastName, firstName or major") @RequestParam String field,
+            @ApiParam("text typed so far") @RequestParam(defaultValue = "") String prefix,
+            @ApiParam("maximum number of suggestions") @RequestParam(required = false) Integer size) {
+        return autocompleteService.suggest(Student.class, field, prefix, size);
+    }
+
+    @ApiOperation(value = "List students one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Student> pageStudents(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<Student> rows = studentRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, Student::getId);
+    }
+
+    @ApiOperation(value = "List students created, updated or deleted after a point in time; apply upserts, then deletes, "
+            + "then ask again from next. resync means fetch /all instead")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public ChangeSet<Student> studentChanges(
+            @ApiParam("ISO-8601 instant: next from the previous response, or when /all was fetched") @RequestParam Instant since) {
+        return changeFeedService.changesSince(Student.class, since, studentRepository::findByLastModifiedAfterOrderByLastModifiedAsc);
+    }
+
+    @ApiOperation(value = "Export all students as newline-delimited JSON, streamed in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export.ndjson")
+    @Transactional(readOnly = true)
+    public void exportStudents(HttpServletResponse response) throws IOException {
+        response.setContentType(EntityExportService.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try (Stream<Student> rows = studentRepository.streamAllByOrderByIdAsc()) {
+            entityExportService.writeNdjson(rows, response.getOutputStream());
+        }
+    }
+
     @ApiOperation(value="Create a new student")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
@@ -58,9 +143,31 @@ public class StudentController extends ApiController{
         student.setMajor(major);
  
         Student savedStudent = studentRepository.save(student);
+        autocompleteService.index(savedStudent);
         return savedStudent;
     }
 
+    @ApiOperation(value = "Create many students from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<Student> bulkStudents(
+            @ApiParam("JSON array of students; ids are ignored") @RequestBody List<Student> incoming) {
+        BulkResult<Student> result = bulkInsertService.createAll(incoming, StudentController::validate, student -> student.setId(0), studentRepository);
+        result.createdRows().forEach(autocompleteService::index);
+        return result;
+    }
+
+    private static List<String> validate(Student student) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "firstName", student.getFirstName());
+        requireText(errors, "lastName", student.getLastName());
+        requireText(errors, "perm", student.getPerm());
+        requireText(errors, "email", student.getEmail());
+        requireText(errors, "phoneNumber", student.getPhoneNumber());
+        requireText(errors, "major", student.getMajor());
+        return errors;
+    }
+
     @ApiOperation(value="Get a single student")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -79,17 +186,16 @@ public class StudentController extends ApiController{
         @ApiParam("id") @RequestParam Long id,
         @RequestBody @Valid Student incoming) {
 
-        Student student = studentRepository.findById(id).orElseThrow(()-> new EntityNotFoundException(Student.class, id));
-        student.setFirstName(incoming.getFirstName());
-
-        student.setLastName(incoming.getLastName());
-        student.setPerm(incoming.getPerm());
-        student.setEmail(incoming.getEmail());
-        student.setMajor(incoming.getMajor());
-        student.setPhoneNumber(incoming.getPhoneNumber());
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (studentRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(Student.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        autocompleteService.index(incoming);
 
-        studentRepository.save(student);
-        return student;
+        return incoming;
     }
 
     @ApiOperation(value="Delete a student")
@@ -98,10 +204,10 @@ public class StudentController extends ApiController{
     public Object deleteStudent(
         @ApiParam("id") @RequestParam Long id
     ) {
-        Student student = studentRepository.findById(id)
-                .orElseThrow(()-> new EntityNotFoundException(Student.class, id));
-        
-        studentRepository.delete(student);
+        if (changeFeedService.deleteRow(Student.class, id, () -> studentRepository.deleteRowById(id)) == 0) {
+            throw new EntityNotFoundException(Student.class, id);
+        }
+        autocompleteService.remove(Student.class, id);
         return genericMessage("Student with id %s deleted".formatted(id));
     }
 }
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.GenerationReport;
+import edu.ucsb.cs156.example.services.SyntheticDataService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+@Api(description = "Synthetic data for scale testing (admin only)")
+@RequestMapping("/api/admin/synthetic")
+@RestController
+public class SyntheticDataController extends ApiController {
+    @Autowired
+    SyntheticDataService syntheticDataService;
+
+    // Rows are generated on the request thread, so a request is kept small
+    // enough to finish before a proxy gives up on it; SyntheticDataRunner
+    // has no such limit.
+    @Value("${app.synthetic.maxRequestRows:10000}")
+    long maxRequestRows = 10_000;
+
+    @ApiOperation(value = "Insert generated rows; the same seed and range always produce the same rows. "
+            + "At most app.synthetic.maxRequestRows rows in total; use the command-line runner for larger runs")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/generate")
+    public List<GenerationReport> generate(
+            @ApiParam("comma separated: student, vehicle, book, movie, ucsbdate, energydrink, user") @RequestParam List<String> entities,
+            @ApiParam("number of rows per entity") @RequestParam long rows,
+            @ApiParam("seed") @RequestParam(defaultValue = "1") long seed,
+            @ApiParam("index of the first row; use a new range to add rows to an earlier run") @RequestParam(defaultValue = "0") long start) {
+        if (rows * entities.size() > maxRequestRows) {
+            throw new BadRequestException(
+                    "a request may generate at most %d rows in total; use the command-line runner (app.synthetic.entities) for larger runs"
+                            .formatted(maxRequestRows));
+        }
+        return syntheticDataService.generate(entities, start, rows, seed);
+    }
+}
@@ -1,8 +1,14 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.UpcomingDatesService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -21,10 +27,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.ArrayList;
 
 @Api(description = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -32,17 +42,73 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+    static final int DEFAULT_UPCOMING = 10;
+    static final int MAX_UPCOMING = 100;
+
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    UpcomingDatesService upcomingDatesService;
+
     @ApiOperation(value = "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
+    public Iterable<UCSBDate> allUCSBDates(WebRequest request) {
+        if (changeTokens.checkNotModified(UCSBDate.class, request)) {
+            return null;
+        }
         Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
         return dates;
     }
 
+    @ApiOperation(value = "List ucsb dates one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBDate> pageUCSBDates(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<UCSBDate> rows = ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, UCSBDate::getId);
+    }
+
+    @ApiOperation(value = "List ucsb dates between two times, in time order, one page at a time")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/between")
+    public KeysetPage<UCSBDate> ucsbDatesBetween(
+            @ApiParam("earliest time, inclusive, as YYYY-mm-ddTHH:MM:SS; omit for no lower bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @ApiParam("latest time, inclusive, as YYYY-mm-ddTHH:MM:SS; omit for no upper bound") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @ApiParam("only dates in this quarter, e.g. 20222; omit for all quarters") @RequestParam(required = false) String quarterYYYYQ,
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        DateTimeRange range = dateTimeRange(from, to);
+        DateTimeIdCursor after = decodeDateTimeIdCursor(cursor, range.from());
+        List<UCSBDate> rows = quarterYYYYQ == null
+                ? ucsbDateRepository.findBetween(after.dateTime(), after.id(), range.to(), keysetPageable(pageSize))
+                : ucsbDateRepository.findInQuarterBetween(quarterYYYYQ, after.dateTime(), after.id(), range.to(), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, ucsbDate -> ucsbDate.getLocalDateTime() + "," + ucsbDate.getId());
+    }
+
+    @ApiOperation(value = "List the next n ucsb dates that have not yet passed, soonest first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/upcoming")
+    public List<UCSBDate> upcomingUCSBDates(
+            @ApiParam("how many dates; default 10") @RequestParam(required = false) Integer n) {
+        int limit = n == null ? DEFAULT_UPCOMING : n;
+        if (limit < 1 || limit > MAX_UPCOMING) {
+            throw new BadRequestException("n must be between 1 and %d".formatted(MAX_UPCOMING));
+        }
+        return upcomingDatesService.upcoming(limit);
+    }
+
     @ApiOperation(value = "Get a single date")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -74,19 +140,38 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(localDateTime);
 
         UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        upcomingDatesService.index(savedUcsbDate);
 
         return savedUcsbDate;
     }
 
+    @ApiOperation(value = "Create many ucsb dates from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<UCSBDate> bulkUCSBDates(
+            @ApiParam("JSON array of ucsb dates; ids are ignored") @RequestBody List<UCSBDate> incoming) {
+        BulkResult<UCSBDate> result = bulkInsertService.createAll(incoming, UCSBDatesController::validate, ucsbDate -> ucsbDate.setId(0), ucsbDateRepository);
+        result.createdRows().forEach(upcomingDatesService::index);
+        return result;
+    }
+
+    private static List<String> validate(UCSBDate ucsbDate) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "quarterYYYYQ", ucsbDate.getQuarterYYYYQ());
+        requireText(errors, "name", ucsbDate.getName());
+        requireValue(errors, "localDateTime", ucsbDate.getLocalDateTime());
+        return errors;
+    }
+
     @ApiOperation(value = "Delete a UCSBDate")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteUCSBDate(
             @ApiParam("id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDateRepository.delete(ucsbDate);
+        if (ucsbDateRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(UCSBDate.class, id);
+        }
+        upcomingDatesService.remove(id);
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
@@ -97,15 +182,15 @@ public class UCSBDatesController extends ApiController {
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid UCSBDate incoming) {
 
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (ucsbDateRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(UCSBDate.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        upcomingDatesService.index(incoming);
 
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
-
-        ucsbDateRepository.save(ucsbDate);
-
-        return ucsbDate;
+        return incoming;
     }
 }
@@ -2,7 +2,12 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.NearbyResult;
+import edu.ucsb.cs156.example.services.DiningCommonsStore;
+import edu.ucsb.cs156.example.services.ChangeTokens;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -18,8 +23,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 import javax.validation.Valid;
+import java.time.Instant;
+import java.util.List;
+import java.util.ArrayList;
 
 
 @Api(description = "UCSBDiningCommons")
@@ -28,26 +39,80 @@ import javax.validation.Valid;
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+    static final int DEFAULT_NEAREST = 5;
+    static final int MAX_NEAREST = 100;
+
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
-    @ApiOperation(value = "List all ucsb dining commons")
+    @Autowired
+    DiningCommonsStore diningCommonsStore;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @ApiOperation(value = "List all ucsb dining commons", response = UCSBDiningCommons.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public ResponseEntity<byte[]> allCommonss(WebRequest request) {
+        if (changeTokens.checkNotModified(UCSBDiningCommons.class, request)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(diningCommonsStore.getAllJson());
+    }
+
+    @ApiOperation(value = "List ucsb dining commons one page at a time, in code order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<UCSBDiningCommons> pageCommons(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        String after = decodeCursor(cursor);
+        List<UCSBDiningCommons> rows = ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(
+                after == null ? "" : after, keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, UCSBDiningCommons::getCode);
+    }
+
+    @ApiOperation(value = "List the commons nearest a point, closest first; with radius, only those within that many metres")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/nearest")
+    public List<NearbyResult<UCSBDiningCommons>> nearestCommons(
+            @ApiParam("latitude in degrees") @RequestParam double lat,
+            @ApiParam("longitude in degrees") @RequestParam double lon,
+            @ApiParam("maximum number of commons, at most 100; default 5, or with radius the 100 nearest within it") @RequestParam(required = false) Integer k,
+            @ApiParam("radius in metres") @RequestParam(required = false) Double radius) {
+        if (!(lat >= -90 && lat <= 90)) {
+            throw new BadRequestException("lat must be between -90 and 90");
+        }
+        if (!(lon >= -180 && lon <= 180)) {
+            throw new BadRequestException("lon must be between -180 and 180");
+        }
+        if (radius != null && !(radius >= 0)) {
+            throw new BadRequestException("radius must not be negative");
+        }
+        int limit = k != null ? k : radius != null ? MAX_NEAREST : DEFAULT_NEAREST;
+        if (limit < 1 || limit > MAX_NEAREST) {
+            throw new BadRequestException("k must be between 1 and %d".formatted(MAX_NEAREST));
+        }
+        return diningCommonsStore.nearest(lat, lon, limit, radius).stream()
+                .map(hit -> new NearbyResult<>(hit.item(), hit.metres()))
+                .toList();
     }
 
-    @ApiOperation(value = "Get a single commons")
+    @ApiOperation(value = "Get a single commons", response = UCSBDiningCommons.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommons getById(
+    public ResponseEntity<byte[]> getById(
             @ApiParam("code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+        byte[] commons = diningCommonsStore.getJson(code)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-        return commons;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(commons);
     }
 
     @ApiOperation(value = "Create a new commons")
@@ -74,19 +139,51 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        diningCommonsStore.refresh();
 
         return savedCommons;
     }
 
+    @ApiOperation(value = "Create or overwrite many commons by code (for loading the dining feed)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/upsert")
+    public Object upsertCommons(
+            @ApiParam("JSON array of commons") @RequestBody List<UCSBDiningCommons> incoming) {
+        if (incoming == null || incoming.isEmpty()) {
+            throw new BadRequestException("request body must be a non-empty JSON array");
+        }
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < incoming.size(); i++) {
+            UCSBDiningCommons commons = incoming.get(i);
+            List<String> rowErrors = new ArrayList<>();
+            if (commons == null) {
+                rowErrors.add("row is required");
+            } else {
+                requireText(rowErrors, "code", commons.getCode());
+                requireText(rowErrors, "name", commons.getName());
+            }
+            for (String error : rowErrors) {
+                errors.add("row %d: %s".formatted(i, error));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BadRequestException(String.join("; ", errors));
+        }
+
+        int upserted = ucsbDiningCommonsRepository.upsertAll(incoming);
+        diningCommonsStore.refresh();
+        return genericMessage("%d UCSBDiningCommons upserted".formatted(upserted));
+    }
+
     @ApiOperation(value = "Delete a UCSBDiningCommons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteCommons(
             @ApiParam("code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
+        if (ucsbDiningCommonsRepository.deleteRowById(code) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        diningCommonsStore.refresh();
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -97,19 +194,13 @@ public class UCSBDiningCommonsController extends ApiController {
             @ApiParam("code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
 
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
+        incoming.setCode(code);
+        if (ucsbDiningCommonsRepository.updateRowById(code, incoming, Instant.now()) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        diningCommonsStore.refresh();
 
-        ucsbDiningCommonsRepository.save(commons);
-
-        return commons;
+        return diningCommonsStore.get(code)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
     }
 }
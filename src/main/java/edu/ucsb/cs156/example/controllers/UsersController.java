@@ -1,19 +1,28 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpServletResponse;
 
 @Api(description="User information (admin only)")
 @RequestMapping("/api/admin/users")
@@ -23,15 +32,34 @@ public class UsersController extends ApiController {
     UserRepository userRepository;
 
     @Autowired
-    ObjectMapper mapper;
+    FieldProjectionService fieldProjectionService;
 
+    @Autowired
+    EntityExportService entityExportService;
+
+    // The list is written to the response as it is read from the database,
+    // so neither the rows nor the JSON are ever held in memory all at once.
     @ApiOperation(value = "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
-    public ResponseEntity<String> users()
-            throws JsonProcessingException {
-        Iterable<User> users = userRepository.findAll();
-        String body = mapper.writeValueAsString(users);
-        return ResponseEntity.ok().body(body);
+    @Transactional(readOnly = true)
+    public void users(
+            @ApiParam("comma separated columns to return, e.g. id,email; omit for all") @RequestParam(required = false) String fields,
+            HttpServletResponse response) throws IOException {
+        if (fields != null) {
+            List<Map<String, Object>> rows = fieldProjectionService.findAll(User.class, fields);
+            setJsonContentType(response);
+            entityExportService.writeJsonArray(rows.stream(), response.getOutputStream());
+            return;
+        }
+        setJsonContentType(response);
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            entityExportService.writeJsonArray(users, response.getOutputStream());
+        }
+    }
+
+    private void setJsonContentType(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
     }
-}
\ No newline at end of file
+}
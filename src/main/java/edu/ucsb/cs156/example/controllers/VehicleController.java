@@ -3,6 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.Vehicle;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.repositories.VehicleRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.BulkInsertService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.ChangeFeedService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -21,10 +30,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.Valid;
+import javax.servlet.http.HttpServletResponse;
 
 import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.io.IOException;
 
 @Api(description = "Vehicle")
 @RequestMapping("/api/vehicle")
@@ -35,14 +52,82 @@ public class VehicleController extends ApiController {
     @Autowired
     VehicleRepository vehicleRepository;
 
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Autowired
+    EntityExportService entityExportService;
+
+    @Autowired
+    FieldProjectionService fieldProjectionService;
+
+    @Autowired
+    ChangeTokens changeTokens;
+
+    @Autowired
+    AutocompleteService autocompleteService;
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+
     @ApiOperation(value = "List all vehicles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Vehicle> allCommonss() {
+    public Iterable<?> allCommonss(
+            @ApiParam("comma separated columns to return, e.g. id,brand; omit for all") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        if (changeTokens.checkNotModified(Vehicle.class, request)) {
+            return null;
+        }
+        if (fields != null) {
+            return fieldProjectionService.findAll(Vehicle.class, fields);
+        }
         Iterable<Vehicle> vehicles = vehicleRepository.findAll();
         return vehicles;
     }
 
+    @ApiOperation(value = "Suggest values of a field that start with the given text, most common first")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/suggest")
+    public List<String> suggestVehicles(
+            @ApiParam("field to suggest values of: brand or model") @RequestParam String field,
+            @ApiParam("text typed so far") @RequestParam(defaultValue = "") String prefix,
+            @ApiParam("maximum number of suggestions") @RequestParam(required = false) Integer size) {
+        return autocompleteService.suggest(Vehicle.class, field, prefix, size);
+    }
+
+    @ApiOperation(value = "List vehicles one page at a time, in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public KeysetPage<Vehicle> pageVehicles(
+            @ApiParam("nextCursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @ApiParam("page size") @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        List<Vehicle> rows = vehicleRepository.findByIdGreaterThanOrderByIdAsc(decodeIdCursor(cursor), keysetPageable(pageSize));
+        return keysetPage(rows, pageSize, Vehicle::getId);
+    }
+
+    @ApiOperation(value = "List vehicles created, updated or deleted after a point in time; apply upserts, then deletes, "
+            + "then ask again from next. resync means fetch /all instead")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public ChangeSet<Vehicle> vehicleChanges(
+            @ApiParam("ISO-8601 instant: next from the previous response, or when /all was fetched") @RequestParam Instant since) {
+        return changeFeedService.changesSince(Vehicle.class, since, vehicleRepository::findByLastModifiedAfterOrderByLastModifiedAsc);
+    }
+
+    @ApiOperation(value = "Export all vehicles as newline-delimited JSON, streamed in id order")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/export.ndjson")
+    @Transactional(readOnly = true)
+    public void exportVehicles(HttpServletResponse response) throws IOException {
+        response.setContentType(EntityExportService.NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try (Stream<Vehicle> rows = vehicleRepository.streamAllByOrderByIdAsc()) {
+            entityExportService.writeNdjson(rows, response.getOutputStream());
+        }
+    }
+
     @ApiOperation(value = "Get a vehicle")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
@@ -73,6 +158,7 @@ public class VehicleController extends ApiController {
             vehicle.setLicence(licence);
             vehicle.setYear(year);
             Vehicle savedVehicle = vehicleRepository.save(vehicle);
+            autocompleteService.index(savedVehicle);
             
             return savedVehicle;
         }
@@ -82,13 +168,32 @@ public class VehicleController extends ApiController {
     @DeleteMapping("")
     public Object deleteVehicle(
             @ApiParam("id") @RequestParam Long id) {
-        Vehicle vehicle = vehicleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Vehicle.class, id));
-
-        vehicleRepository.delete(vehicle);
+        if (changeFeedService.deleteRow(Vehicle.class, id, () -> vehicleRepository.deleteRowById(id)) == 0) {
+            throw new EntityNotFoundException(Vehicle.class, id);
+        }
+        autocompleteService.remove(Vehicle.class, id);
         return genericMessage("Vehicle with id %s deleted".formatted(id));
     }
 
+    @ApiOperation(value = "Create many vehicles from a JSON array; returns a result for every row")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk")
+    public BulkResult<Vehicle> bulkVehicles(
+            @ApiParam("JSON array of vehicles; ids are ignored") @RequestBody List<Vehicle> incoming) {
+        BulkResult<Vehicle> result = bulkInsertService.createAll(incoming, VehicleController::validate, vehicle -> vehicle.setId(0), vehicleRepository);
+        result.createdRows().forEach(autocompleteService::index);
+        return result;
+    }
+
+    private static List<String> validate(Vehicle vehicle) {
+        List<String> errors = new ArrayList<>();
+        requireText(errors, "brand", vehicle.getBrand());
+        requireText(errors, "model", vehicle.getModel());
+        requireText(errors, "licence", vehicle.getLicence());
+        requireText(errors, "year", vehicle.getYear());
+        return errors;
+    }
+
     @ApiOperation(value = "Update a single commons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
@@ -96,17 +201,15 @@ public class VehicleController extends ApiController {
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Vehicle incoming) {
 
-        Vehicle vehicle = vehicleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Vehicle.class, id));
-
-
-        vehicle.setBrand(incoming.getBrand());  
-        vehicle.setModel(incoming.getModel());
-        vehicle.setLicence(incoming.getLicence());
-        vehicle.setYear(incoming.getYear());
-
-        vehicleRepository.save(vehicle);
+        incoming.setId(id);
+        Instant now = Instant.now();
+        if (vehicleRepository.updateRowById(id, incoming, now) == 0) {
+            throw new EntityNotFoundException(Vehicle.class, id);
+        }
+        incoming.setVersion(now.toEpochMilli());
+        incoming.setLastModified(now);
+        autocompleteService.index(incoming);
 
-        return vehicle;
+        return incoming;
     }
 }
\ No newline at end of file
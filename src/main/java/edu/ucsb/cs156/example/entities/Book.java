@@ -9,18 +9,65 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.GenericGenerator;
+import edu.ucsb.cs156.example.config.PooledSequenceGenerator;
+import javax.persistence.Cacheable;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Version;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import lombok.EqualsAndHashCode;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity(name = "books")
+@Table(indexes = {
+    @Index(name = "books_title_idx", columnList = "title"),
+    @Index(name = "books_published_on_idx", columnList = "publishedOn, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book{
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequenceGenerator.NAME)
+  @GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = PooledSequenceGenerator.STRATEGY)
   private long id;
 
   private String title;
   private String author;  
-  private String date; 
-}
\ No newline at end of file
+  private String date;
+
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
+
+  @UpdateTimestamp
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Instant lastModified;
+
+  // date as a LocalDate, for range queries; null when date is not a date.
+  // updateRowById sets it with the same PartialDates.parse.
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private LocalDate publishedOn;
+
+  @PrePersist
+  @PreUpdate
+  void parseDate() {
+    publishedOn = PartialDates.parse(date);
+  }
+}
@@ -11,18 +11,62 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.GenericGenerator;
+import edu.ucsb.cs156.example.config.PooledSequenceGenerator;
+import javax.persistence.Cacheable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Version;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDate;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import lombok.EqualsAndHashCode;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity(name = "movie")
+@Table(indexes = @Index(name = "movie_released_on_idx", columnList = "releasedOn, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "movie")
 public class Movie {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequenceGenerator.NAME)
+  @GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = PooledSequenceGenerator.STRATEGY)
   private long id;
 
   private String movieName;
   private String directorName;  
   private String releaseDate;
-}
\ No newline at end of file
+
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Long version;
+
+  @UpdateTimestamp
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private Instant lastModified;
+
+  // releaseDate as a LocalDate, for range queries; null when releaseDate
+  // is not a date.  updateRowById sets it with the same PartialDates.parse.
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  private LocalDate releasedOn;
+
+  @PrePersist
+  @PreUpdate
+  void parseReleaseDate() {
+    releasedOn = PartialDates.parse(releaseDate);
+  }
+}
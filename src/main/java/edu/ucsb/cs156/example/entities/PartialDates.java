@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Book.date and Movie.releaseDate are free text, usually "2009-12-18" but
+// sometimes just "2009" or "2009-12".  parse() turns them into the first
+// day they can mean, so they can be stored in a typed, indexed column and
+// compared by the database.  Anything else (including a time after the
+// date, which is ignored) that is not a real date gives null.
+
+public final class PartialDates {
+
+  private static final Pattern DATE = Pattern.compile("(\\d{4})(?:-(\\d{1,2})(?:-(\\d{1,2}))?)?(?:[T ].*)?");
+
+  private PartialDates() {
+  }
+
+  public static LocalDate parse(String text) {
+    if (text == null) {
+      return null;
+    }
+    Matcher m = DATE.matcher(text.strip());
+    if (!m.matches()) {
+      return null;
+    }
+    try {
+      return LocalDate.of(Integer.parseInt(m.group(1)),
+          m.group(2) == null ? 1 : Integer.parseInt(m.group(2)),
+          m.group(3) == null ? 1 : Integer.parseInt(m.group(3)));
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+}
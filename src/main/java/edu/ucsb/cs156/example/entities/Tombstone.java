@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.entities;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import org.hibernate.annotations.GenericGenerator;
+import edu.ucsb.cs156.example.config.PooledSequenceGenerator;
+import java.time.Instant;
+
+// Marks a row that was deleted, so /changes can report the delete after
+// the row itself is gone.  Kept for app.changes.retentionDays; every
+// delete prunes the expired ones through tombstones_deleted_at_idx.
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "tombstones")
+@Table(indexes = {
+    @Index(name = "tombstones_entity_name_deleted_at_idx", columnList = "entityName, deletedAt"),
+    @Index(name = "tombstones_deleted_at_idx", columnList = "deletedAt")
+})
+public class Tombstone {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = PooledSequenceGenerator.NAME)
+  @GenericGenerator(name = PooledSequenceGenerator.NAME, strategy = PooledSequenceGenerator.STRATEGY)
+  private long id;
+
+  private String entityName;
+  private String rowId;
+  private Instant deletedAt;
+}
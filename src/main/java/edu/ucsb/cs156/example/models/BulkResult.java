@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkResult<T> {
+  private int created;
+  private int rejected;
+  private int failed;
+  private List<BulkRowResult<T>> rows;
+
+  public List<T> createdRows() {
+    return rows.stream().filter(r -> BulkRowResult.CREATED.equals(r.getStatus())).map(BulkRowResult::getRow).toList();
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkRowResult<T> {
+  public static final String CREATED = "created";
+  public static final String REJECTED = "rejected";
+  public static final String FAILED = "failed";
+
+  // position of the row in the request body
+  private int index;
+  private String status;
+  // the saved row (with its new id) when status is "created"
+  private T row;
+  private List<String> errors;
+}
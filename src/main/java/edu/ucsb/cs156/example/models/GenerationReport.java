@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class GenerationReport {
+  private String entity;
+  private long seed;
+  private long start;
+  private long inserted;
+  private long failed;
+  private long millis;
+  private double rowsPerSecond;
+  private String firstError;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RouteTiming {
+  private String route;
+  private long count;
+  private double meanMillis;
+  private double p50Millis;
+  private double p95Millis;
+  private double p99Millis;
+  private double maxMillis;
+}
@@ -2,10 +2,52 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Book;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
-public interface BookRepository extends CrudRepository<Book, Long> {
+public interface BookRepository extends PagingAndSortingRepository<Book, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Iterable<Book> findAllByTitle(String title);
+    List<Book> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    Stream<Book> streamAllByOrderByIdAsc();
+
+    // Books published from afterDate to `to` in (publishedOn, id) order,
+    // starting after the row (afterDate, afterId); books_published_on_idx
+    // serves both the range and the order.
+    @Query("select e from books e where e.publishedOn between :afterDate and :to and (e.publishedOn > :afterDate or e.id > :afterId) order by e.publishedOn, e.id")
+    List<Book> findPublishedBetween(@Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId,
+            @Param("to") LocalDate to, Pageable pageable);
+
+    List<Book> findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc(long id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from books e where e.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    @Modifying
+    @Transactional
+    @Query("update books e set e.title = :#{#row.title}, e.author = :#{#row.author}, e.date = :#{#row.date}, e.publishedOn = :#{T(edu.ucsb.cs156.example.entities.PartialDates).parse(#row.date)}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+    int updateRowById(@Param("id") long id, @Param("row") Book row,
+            @Param("lastModified") Instant lastModified);
 }
@@ -2,10 +2,40 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Movie;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
 
 
 @Repository
-public interface MovieRepository extends CrudRepository<Movie, Long> {
+public interface MovieRepository extends PagingAndSortingRepository<Movie, Long> {
+  List<Movie> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  // Movies released from afterDate to `to` in (releasedOn, id) order,
+  // starting after the row (afterDate, afterId); movie_released_on_idx
+  // serves both the range and the order.
+  @Query("select e from movie e where e.releasedOn between :afterDate and :to and (e.releasedOn > :afterDate or e.id > :afterId) order by e.releasedOn, e.id")
+  List<Movie> findReleasedBetween(@Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId,
+      @Param("to") LocalDate to, Pageable pageable);
+
+  List<Movie> findByIdGreaterThanAndReleasedOnIsNullAndReleaseDateIsNotNullOrderByIdAsc(long id, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("delete from movie e where e.id = :id")
+  int deleteRowById(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("update movie e set e.movieName = :#{#row.movieName}, e.directorName = :#{#row.directorName}, e.releaseDate = :#{#row.releaseDate}, e.releasedOn = :#{T(edu.ucsb.cs156.example.entities.PartialDates).parse(#row.releaseDate)}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+  int updateRowById(@Param("id") long id, @Param("row") Movie row,
+      @Param("lastModified") Instant lastModified);
 }
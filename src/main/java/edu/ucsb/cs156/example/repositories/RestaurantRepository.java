@@ -2,9 +2,29 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
 
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+public interface RestaurantRepository extends PagingAndSortingRepository<Restaurant, Long> {
+  List<Restaurant> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("delete from restaurant e where e.id = :id")
+  int deleteRowById(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("update restaurant e set e.name = :#{#row.name}, e.location = :#{#row.location}, e.hasTakeOut = :#{#row.hasTakeOut}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+  int updateRowById(@Param("id") long id, @Param("row") Restaurant row,
+      @Param("lastModified") Instant lastModified);
 }
@@ -2,9 +2,40 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Student;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface StudentRepository extends CrudRepository<Student, Long> {
+public interface StudentRepository extends PagingAndSortingRepository<Student, Long> {
+  List<Student> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+  List<Student> findByLastModifiedAfterOrderByLastModifiedAsc(Instant since, Pageable pageable);
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  Stream<Student> streamAllByOrderByIdAsc();
+
+  @Modifying
+  @Transactional
+  @Query("delete from student e where e.id = :id")
+  int deleteRowById(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("update student e set e.firstName = :#{#row.firstName}, e.lastName = :#{#row.lastName}, e.perm = :#{#row.perm}, e.email = :#{#row.email}, e.phoneNumber = :#{#row.phoneNumber}, e.major = :#{#row.major}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+  int updateRowById(@Param("id") long id, @Param("row") Student row,
+      @Param("lastModified") Instant lastModified);
 }
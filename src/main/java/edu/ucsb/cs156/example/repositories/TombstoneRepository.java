@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.Tombstone;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends CrudRepository<Tombstone, Long> {
+  List<Tombstone> findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(String entityName, Instant since, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("delete from tombstones t where t.deletedAt < :before")
+  int deleteRowsDeletedBefore(@Param("before") Instant before);
+}
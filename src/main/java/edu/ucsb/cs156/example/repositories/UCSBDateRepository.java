@@ -2,11 +2,50 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository extends PagingAndSortingRepository<UCSBDate, Long> {
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+  List<UCSBDate> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  // Dates from afterTime through to, in (localDateTime, id) order,
+  // starting after the row (afterTime, afterId).  The first is served by
+  // ucsbdates_local_date_time_idx, the second, limited to one quarter, by
+  // ucsbdates_quarter_local_date_time_idx.
+  @Query("select e from ucsbdates e where e.localDateTime between :afterTime and :to and (e.localDateTime > :afterTime or e.id > :afterId) order by e.localDateTime, e.id")
+  List<UCSBDate> findBetween(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+      @Param("to") LocalDateTime to, Pageable pageable);
+
+  @Query("select e from ucsbdates e where e.quarterYYYYQ = :quarter and e.localDateTime between :afterTime and :to and (e.localDateTime > :afterTime or e.id > :afterId) order by e.localDateTime, e.id")
+  List<UCSBDate> findInQuarterBetween(@Param("quarter") String quarterYYYYQ, @Param("afterTime") LocalDateTime afterTime,
+      @Param("afterId") long afterId, @Param("to") LocalDateTime to, Pageable pageable);
+
+  List<UCSBDate> findByLocalDateTimeGreaterThanEqual(LocalDateTime from);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdates e where e.id = :id")
+  int deleteRowById(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  @Query("update ucsbdates e set e.quarterYYYYQ = :#{#row.quarterYYYYQ}, e.name = :#{#row.name}, e.localDateTime = :#{#row.localDateTime}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+  int updateRowById(@Param("id") long id, @Param("row") UCSBDate row,
+      @Param("lastModified") Instant lastModified);
 }
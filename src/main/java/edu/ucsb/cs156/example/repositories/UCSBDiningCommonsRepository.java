@@ -3,11 +3,31 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
 
 
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+public interface UCSBDiningCommonsRepository extends PagingAndSortingRepository<UCSBDiningCommons, String>,
+    UCSBDiningCommonsRepositoryCustom {
+  List<UCSBDiningCommons> findByCodeGreaterThanOrderByCodeAsc(String code, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("delete from ucsbdiningcommons e where e.code = :code")
+  int deleteRowById(@Param("code") String code);
+
+  @Modifying
+  @Transactional
+  @Query("update ucsbdiningcommons e set e.name = :#{#row.name}, e.hasSackMeal = :#{#row.hasSackMeal}, e.hasTakeOutMeal = :#{#row.hasTakeOutMeal}, e.hasDiningCam = :#{#row.hasDiningCam}, e.latitude = :#{#row.latitude}, e.longitude = :#{#row.longitude}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.code = :code")
+  int updateRowById(@Param("code") String code, @Param("row") UCSBDiningCommons row,
+      @Param("lastModified") Instant lastModified);
+}
@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+
+import java.util.List;
+
+public interface UCSBDiningCommonsRepositoryCustom {
+  // Inserts each row, or overwrites the row with the same code, with one
+  // native statement per row sent as a single JDBC batch.
+  int upsertAll(List<UCSBDiningCommons> commons);
+}
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+
+import java.sql.Types;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class UCSBDiningCommonsRepositoryCustomImpl implements UCSBDiningCommonsRepositoryCustom {
+
+  // Rows go through JDBC, not Hibernate, so the version and last_modified
+  // columns are maintained here: 0 on insert, incremented on update.
+  static final String H2_UPSERT = "MERGE INTO ucsbdiningcommons"
+      + " (code, name, has_sack_meal, has_take_out_meal, has_dining_cam, latitude, longitude, version, last_modified)"
+      + " KEY (code) VALUES (?, ?, ?, ?, ?, ?, ?,"
+      + " COALESCE((SELECT version + 1 FROM ucsbdiningcommons WHERE code = ?), 0), CURRENT_TIMESTAMP)";
+
+  static final String POSTGRES_UPSERT = "INSERT INTO ucsbdiningcommons"
+      + " (code, name, has_sack_meal, has_take_out_meal, has_dining_cam, latitude, longitude, version, last_modified)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP)"
+      + " ON CONFLICT (code) DO UPDATE SET name = EXCLUDED.name,"
+      + " has_sack_meal = EXCLUDED.has_sack_meal, has_take_out_meal = EXCLUDED.has_take_out_meal,"
+      + " has_dining_cam = EXCLUDED.has_dining_cam, latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude,"
+      + " version = ucsbdiningcommons.version + 1, last_modified = EXCLUDED.last_modified";
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired(required = false)
+  EntityManagerFactory entityManagerFactory;
+
+  private volatile String upsertSql;
+
+  @Override
+  @Transactional
+  public int upsertAll(List<UCSBDiningCommons> commons) {
+    String sql = upsertSql();
+    int[][] counts = jdbcTemplate.batchUpdate(sql, commons, commons.size(), (ps, c) -> {
+      ps.setString(1, c.getCode());
+      ps.setString(2, c.getName());
+      ps.setBoolean(3, c.getHasSackMeal());
+      ps.setBoolean(4, c.getHasTakeOutMeal());
+      ps.setBoolean(5, c.getHasDiningCam());
+      ps.setObject(6, c.getLatitude(), Types.DOUBLE);
+      ps.setObject(7, c.getLongitude(), Types.DOUBLE);
+      if (H2_UPSERT.equals(sql)) {
+        ps.setString(8, c.getCode());
+      }
+    });
+    int upserted = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        // drivers may report SUCCESS_NO_INFO (-2) for batched rows
+        upserted += count == 0 ? 0 : 1;
+      }
+    }
+    evictCachedRows();
+    return upserted;
+  }
+
+  // The upsert bypasses Hibernate, so the second-level cache would keep
+  // serving the old rows.  Drop the region once the new rows are committed;
+  // evicting earlier would let a concurrent load cache the old values again.
+  private void evictCachedRows() {
+    if (entityManagerFactory == null) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          entityManagerFactory.getCache().evict(UCSBDiningCommons.class);
+        }
+      });
+    } else {
+      entityManagerFactory.getCache().evict(UCSBDiningCommons.class);
+    }
+  }
+
+  // Looked up at startup so that an unsupported database stops the boot
+  // instead of failing the first /upsert.
+  @PostConstruct
+  void checkDatabaseSupported() {
+    upsertSql();
+  }
+
+  String upsertSql() {
+    if (upsertSql == null) {
+      String product = jdbcTemplate.execute(
+          (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+      upsertSql = upsertSqlFor(product);
+    }
+    return upsertSql;
+  }
+
+  static String upsertSqlFor(String databaseProductName) {
+    if ("H2".equals(databaseProductName)) {
+      return H2_UPSERT;
+    }
+    if ("PostgreSQL".equals(databaseProductName)) {
+      return POSTGRES_UPSERT;
+    }
+    throw new IllegalStateException("upsert is not supported on " + databaseProductName);
+  }
+}
@@ -2,10 +2,43 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Vehicle;
 
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
-public interface VehicleRepository extends CrudRepository<Vehicle, Long> {
+public interface VehicleRepository extends PagingAndSortingRepository<Vehicle, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Iterable<Vehicle> findAllByBrand(String brand);
+    List<Vehicle> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+    List<Vehicle> findByLastModifiedAfterOrderByLastModifiedAsc(Instant since, Pageable pageable);
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    Stream<Vehicle> streamAllByOrderByIdAsc();
+
+    @Modifying
+    @Transactional
+    @Query("delete from vehicle e where e.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    @Modifying
+    @Transactional
+    @Query("update vehicle e set e.brand = :#{#row.brand}, e.model = :#{#row.model}, e.licence = :#{#row.licence}, e.year = :#{#row.year}, e.version = :#{#lastModified.toEpochMilli()}, e.lastModified = :lastModified where e.id = :id")
+    int updateRowById(@Param("id") long id, @Param("row") Vehicle row,
+            @Param("lastModified") Instant lastModified);
 }
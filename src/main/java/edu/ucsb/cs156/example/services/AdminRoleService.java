@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// Answers "is this email an admin?" without any I/O.
+//
+// Two sources are consulted: the immutable set of app.admin.emails, built
+// once at startup, and an in-memory index of users rows whose admin flag is
+// set.  The index is loaded when the application is ready, kept current by
+// UserEntityListener, and can be reloaded with refresh().
+
+@Slf4j
+@Service("adminRoles")
+public class AdminRoleService {
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Value("${app.admin.emails}")
+  List<String> adminEmails = new ArrayList<String>();
+
+  private Set<String> configuredAdmins = Set.of();
+  private volatile Set<String> adminUsers = Set.of();
+  private volatile boolean loaded = false;
+
+  @PostConstruct
+  void buildConfiguredAdmins() {
+    configuredAdmins = Set.copyOf(adminEmails);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void refresh() {
+    adminUsers = userRepository.findByAdminTrue().stream()
+        .map(User::getEmail)
+        .collect(Collectors.toUnmodifiableSet());
+    loaded = true;
+    log.info("adminRoles loaded {} configured and {} database admins", configuredAdmins.size(), adminUsers.size());
+  }
+
+  public boolean isConfiguredAdmin(String email) {
+    return configuredAdmins.contains(email);
+  }
+
+  public boolean isAdmin(String email) {
+    if (email == null) {
+      return false;
+    }
+    if (configuredAdmins.contains(email)) {
+      return true;
+    }
+    if (!loaded) {
+      refresh();
+    }
+    return adminUsers.contains(email);
+  }
+
+  public synchronized void userWritten(User user) {
+    String email = user.getEmail();
+    if (email == null || adminUsers.contains(email) == user.getAdmin()) {
+      return;
+    }
+    Set<String> updated = new HashSet<>(adminUsers);
+    if (user.getAdmin()) {
+      updated.add(email);
+    } else {
+      updated.remove(email);
+    }
+    adminUsers = Set.copyOf(updated);
+  }
+
+  public synchronized void userRemoved(User user) {
+    String email = user.getEmail();
+    if (email == null || !adminUsers.contains(email)) {
+      return;
+    }
+    Set<String> updated = new HashSet<>(adminUsers);
+    updated.remove(email);
+    adminUsers = Set.copyOf(updated);
+  }
+}
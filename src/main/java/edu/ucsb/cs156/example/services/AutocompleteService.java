@@ -0,0 +1,205 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.Vehicle;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.repositories.VehicleRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// As-you-type suggestions for a few text columns, answered from a
+// PrefixTrie per column instead of a query per keystroke.  A suggestion
+// is a distinct value, so "Toyota" is offered once however many vehicles
+// carry it, ahead of rarer brands that share the prefix.
+//
+// Updates by id do not say what the old value was, so each column also
+// remembers the value of every row.  Those values are the trie's interned
+// strings, so rows sharing a value share one copy.
+
+@Slf4j
+@Service("autocomplete")
+public class AutocompleteService {
+
+  @Autowired
+  StudentRepository studentRepository;
+
+  @Autowired
+  VehicleRepository vehicleRepository;
+
+  @Autowired
+  RestaurantRepository restaurantRepository;
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Value("${app.suggest.defaultSize:10}")
+  int defaultSize = 10;
+
+  @Value("${app.suggest.maxSize:50}")
+  int maxSize = 50;
+
+  final Suggester<Student> students = new Suggester<>(Student::getId)
+      .field("lastName", Student::getLastName)
+      .field("firstName", Student::getFirstName)
+      .field("major", Student::getMajor);
+
+  final Suggester<Vehicle> vehicles = new Suggester<>(Vehicle::getId)
+      .field("brand", Vehicle::getBrand)
+      .field("model", Vehicle::getModel);
+
+  final Suggester<Restaurant> restaurants = new Suggester<>(Restaurant::getId)
+      .field("name", Restaurant::getName)
+      .field("location", Restaurant::getLocation);
+
+  final Suggester<Book> books = new Suggester<>(Book::getId)
+      .field("title", Book::getTitle)
+      .field("author", Book::getAuthor);
+
+  private final Map<Class<?>, Suggester<?>> byType = Map.of(
+      Student.class, students,
+      Vehicle.class, vehicles,
+      Restaurant.class, restaurants,
+      Book.class, books);
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    students.rebuild(studentRepository.findAll());
+    vehicles.rebuild(vehicleRepository.findAll());
+    restaurants.rebuild(restaurantRepository.findAll());
+    books.rebuild(bookRepository.findAll());
+    log.info("suggestion tries built: {} students, {} vehicles, {} restaurants, {} books",
+        students.size(), vehicles.size(), restaurants.size(), books.size());
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> void index(T row) {
+    suggester((Class<T>) row.getClass()).put(row);
+  }
+
+  public void remove(Class<?> type, long id) {
+    suggester(type).remove(id);
+  }
+
+  public List<String> suggest(Class<?> type, String field, String prefix, Integer size) {
+    int limit = size == null ? defaultSize : size;
+    if (limit < 1 || limit > maxSize) {
+      throw new BadRequestException("size must be between 1 and %d".formatted(maxSize));
+    }
+    return suggester(type).suggest(field, prefix, limit);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Suggester<T> suggester(Class<T> type) {
+    Suggester<T> suggester = (Suggester<T>) byType.get(type);
+    if (suggester == null) {
+      throw new IllegalArgumentException("no suggestions for " + type.getSimpleName());
+    }
+    return suggester;
+  }
+
+  // The tries and remembered values of one table's columns, behind one
+  // lock: reads share it, writes take it exclusively.
+  static class Suggester<T> {
+
+    private final ToLongFunction<T> id;
+    private final Map<String, Function<T, String>> getters = new LinkedHashMap<>();
+    private final Map<String, PrefixTrie> tries = new LinkedHashMap<>();
+    private final Map<String, Map<Long, String>> values = new LinkedHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    Suggester(ToLongFunction<T> id) {
+      this.id = id;
+    }
+
+    Suggester<T> field(String name, Function<T, String> getter) {
+      getters.put(name, getter);
+      tries.put(name, new PrefixTrie());
+      values.put(name, new HashMap<>());
+      return this;
+    }
+
+    void rebuild(Iterable<T> rows) {
+      lock.writeLock().lock();
+      try {
+        getters.keySet().forEach(name -> {
+          tries.put(name, new PrefixTrie());
+          values.put(name, new HashMap<>());
+        });
+        rows.forEach(this::putLocked);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    void put(T row) {
+      lock.writeLock().lock();
+      try {
+        putLocked(row);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    private void putLocked(T row) {
+      long rowId = id.applyAsLong(row);
+      getters.forEach((name, getter) -> {
+        PrefixTrie trie = tries.get(name);
+        trie.remove(values.get(name).remove(rowId));
+        String value = getter.apply(row);
+        if (value != null && !value.isBlank()) {
+          trie.add(value);
+          values.get(name).put(rowId, value.strip().intern());
+        }
+      });
+    }
+
+    void remove(long rowId) {
+      lock.writeLock().lock();
+      try {
+        getters.keySet().forEach(name -> tries.get(name).remove(values.get(name).remove(rowId)));
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    List<String> suggest(String field, String prefix, int limit) {
+      if (!getters.containsKey(field)) {
+        throw new BadRequestException("unknown field '%s'; expected one of %s".formatted(field, getters.keySet()));
+      }
+      lock.readLock().lock();
+      try {
+        return tries.get(field).suggest(prefix, limit);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    int size() {
+      lock.readLock().lock();
+      try {
+        return values.values().stream().mapToInt(Map::size).max().orElse(0);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+  }
+}
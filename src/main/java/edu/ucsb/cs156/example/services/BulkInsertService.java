@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Creates many rows from one request.  Every row is validated first;
+// invalid rows are reported and skipped.  Valid rows are saved in chunks
+// of app.bulk.chunkSize, each chunk in its own transaction, so that
+// Hibernate can send each chunk as a few JDBC batches and a bad chunk does
+// not roll back the ones before it.
+
+@Slf4j
+@Service("bulkInsert")
+public class BulkInsertService {
+
+  @Autowired(required = false)
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.bulk.chunkSize:500}")
+  int chunkSize = 500;
+
+  @Value("${app.bulk.maxRows:10000}")
+  int maxRows = 10000;
+
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  void buildTransactionTemplate() {
+    if (transactionManager != null) {
+      transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+  }
+
+  public <T> BulkResult<T> createAll(List<T> rows, Function<T, List<String>> validator,
+      Consumer<T> resetId, CrudRepository<T, ?> repository) {
+    if (rows == null || rows.isEmpty()) {
+      throw new BadRequestException("request body must be a non-empty JSON array");
+    }
+    if (rows.size() > maxRows) {
+      throw new BadRequestException("at most %d rows may be created per request".formatted(maxRows));
+    }
+
+    List<BulkRowResult<T>> results = new ArrayList<>(rows.size());
+    List<BulkRowResult<T>> pending = new ArrayList<>(chunkSize);
+    for (int i = 0; i < rows.size(); i++) {
+      T row = rows.get(i);
+      List<String> errors = row == null ? List.of("row is required") : validator.apply(row);
+      if (!errors.isEmpty()) {
+        results.add(new BulkRowResult<>(i, BulkRowResult.REJECTED, null, errors));
+        continue;
+      }
+      // ids are always assigned by the database, never taken from the request
+      resetId.accept(row);
+      BulkRowResult<T> result = new BulkRowResult<>(i, BulkRowResult.CREATED, row, List.of());
+      results.add(result);
+      pending.add(result);
+      if (pending.size() == chunkSize) {
+        saveChunk(pending, repository);
+        pending.clear();
+      }
+    }
+    if (!pending.isEmpty()) {
+      saveChunk(pending, repository);
+    }
+
+    int created = 0;
+    int rejected = 0;
+    int failed = 0;
+    for (BulkRowResult<T> result : results) {
+      switch (result.getStatus()) {
+        case BulkRowResult.CREATED -> created++;
+        case BulkRowResult.REJECTED -> rejected++;
+        default -> failed++;
+      }
+    }
+    log.info("bulk create: {} created, {} rejected, {} failed", created, rejected, failed);
+    return new BulkResult<>(created, rejected, failed, results);
+  }
+
+  private <T> void saveChunk(List<BulkRowResult<T>> chunk, CrudRepository<T, ?> repository) {
+    List<T> rows = chunk.stream().map(BulkRowResult::getRow).toList();
+    try {
+      if (transactionTemplate == null) {
+        repository.saveAll(rows);
+      } else {
+        transactionTemplate.executeWithoutResult(status -> repository.saveAll(rows));
+      }
+    } catch (DataAccessException e) {
+      // the driver's message is SQL, so it is logged, not returned
+      log.warn("bulk create: chunk of {} rows failed: {}", rows.size(), e.getMostSpecificCause().getMessage());
+      String message = e instanceof DataIntegrityViolationException
+          ? "row conflicts with an existing row"
+          : "row could not be saved";
+      for (BulkRowResult<T> result : chunk) {
+        result.setStatus(BulkRowResult.FAILED);
+        result.setRow(null);
+        result.setErrors(List.of(message));
+      }
+    }
+  }
+}
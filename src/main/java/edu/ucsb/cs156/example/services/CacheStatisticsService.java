@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// Reports hit/miss counts for the Hibernate second-level cache regions
+// configured in ehcache.xml and for the query cache, which are only
+// collected while hibernate.generate_statistics is on, and for UserCache,
+// which always counts.
+
+@Service("cacheStatistics")
+public class CacheStatisticsService {
+
+  @Autowired(required = false)
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  UserCache userCache;
+
+  public Map<String, Map<String, Long>> getStats() {
+    Map<String, Map<String, Long>> stats = new TreeMap<>();
+    stats.put("userCache", userCache.getStats());
+    if (entityManagerFactory == null) {
+      return stats;
+    }
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    if (!statistics.isStatisticsEnabled()) {
+      return stats;
+    }
+    for (String region : statistics.getSecondLevelCacheRegionNames()) {
+      CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+      if (regionStatistics != null) {
+        stats.put(region, Map.of(
+            "hits", regionStatistics.getHitCount(),
+            "misses", regionStatistics.getMissCount(),
+            "puts", regionStatistics.getPutCount(),
+            "size", regionStatistics.getElementCountInMemory()));
+      }
+    }
+    stats.put("queries", Map.of(
+        "hits", statistics.getQueryCacheHitCount(),
+        "misses", statistics.getQueryCacheMissCount(),
+        "puts", statistics.getQueryCachePutCount()));
+    return stats;
+  }
+}
@@ -0,0 +1,101 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Answers "what changed since T" for a table.  Inserts and updates are the
+// rows whose indexed lastModified is after T; deletes come from tombstones
+// written in the same transaction as the delete.  Work per call is bounded
+// by the number of changes, not by the size of the table.
+//
+// Timestamps are assigned before commit, so a slow transaction can become
+// visible with a lastModified that is already behind a reader's cursor.
+// The next cursor is therefore held app.changes.overlapSeconds behind the
+// time of the read: clients may see a change twice, but do not miss one.
+// That only holds if every timestamp comes from one clock, so inserts
+// (@UpdateTimestamp), updates (updateRowById's lastModified), tombstones
+// and the cursor are all stamped by the JVM, never by the database.
+// When there are more than app.changes.maxRows changes, or the cursor is
+// older than the tombstones kept, the response only says resync and the
+// client should fetch /all again.
+
+@Slf4j
+@Service("changeFeed")
+public class ChangeFeedService {
+
+  @Autowired
+  TombstoneRepository tombstoneRepository;
+
+  @Value("${app.changes.maxRows:1000}")
+  int maxRows = 1000;
+
+  @Value("${app.changes.overlapSeconds:5}")
+  long overlapSeconds = 5;
+
+  @Value("${app.changes.retentionDays:30}")
+  long retentionDays = 30;
+
+  Clock clock = Clock.systemUTC();
+
+  @Transactional
+  public int deleteRow(Class<?> entityType, Object id, IntSupplier delete) {
+    int deleted = delete.getAsInt();
+    if (deleted > 0) {
+      Instant now = clock.instant();
+      tombstoneRepository.save(Tombstone.builder()
+          .entityName(ChangeTokens.entityName(entityType))
+          .rowId(String.valueOf(id))
+          .deletedAt(now)
+          .build());
+      tombstoneRepository.deleteRowsDeletedBefore(now.minus(retention()));
+    }
+    return deleted;
+  }
+
+  @Transactional(readOnly = true)
+  public <T> ChangeSet<T> changesSince(Class<T> entityType, Instant since,
+      BiFunction<Instant, Pageable, List<T>> changedRows) {
+    Instant now = clock.instant();
+    if (since.isBefore(now.minus(retention()))) {
+      return resync(since);
+    }
+    Pageable limit = PageRequest.of(0, maxRows + 1);
+    List<T> upserts = changedRows.apply(since, limit);
+    List<Tombstone> tombstones = tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(
+        ChangeTokens.entityName(entityType), since, limit);
+    if (upserts.size() > maxRows || tombstones.size() > maxRows) {
+      log.info("{} changes since {} exceed {} rows; asking client to resync", entityType.getSimpleName(), since, maxRows);
+      return resync(since);
+    }
+    Instant next = now.minusSeconds(overlapSeconds);
+    if (next.isBefore(since)) {
+      next = since;
+    }
+    List<String> deletes = tombstones.stream().map(Tombstone::getRowId).toList();
+    return new ChangeSet<>(since, next, false, upserts, deletes);
+  }
+
+  private Duration retention() {
+    return Duration.ofDays(retentionDays);
+  }
+
+  private static <T> ChangeSet<T> resync(Instant since) {
+    return new ChangeSet<>(since, null, true, List.of(), List.of());
+  }
+}
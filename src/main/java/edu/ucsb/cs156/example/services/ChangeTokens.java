@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.Entity;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+// One change token per table, kept in memory.  ChangeTrackingAspect calls
+// recordWrite after every committed repository write, so a token can be
+// compared against a request's If-None-Match without touching the table.
+// The ETag carries the time this instance started, so a token handed out
+// before a restart, or by another instance, never matches.
+//
+// Only writes made through this instance are counted, so a client that
+// keeps asking one instance cannot see writes made through another: the
+// tokens assume the application runs as a single instance.  There is
+// deliberately no Last-Modified: a date carries no epoch, so a client
+// sending only If-Modified-Since could be told a stale list is current.
+
+@Service("changeTokens")
+public class ChangeTokens {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final Map<Class<?>, Table> tables = new ConcurrentHashMap<>();
+
+  private static final class Table {
+    final String name;
+    final AtomicLong writes = new AtomicLong();
+
+    Table(String name) {
+      this.name = name;
+    }
+  }
+
+  private Table table(Class<?> entityType) {
+    return tables.computeIfAbsent(entityType, type -> new Table(entityName(type)));
+  }
+
+  public void recordWrite(Class<?> entityType) {
+    table(entityType).writes.incrementAndGet();
+  }
+
+  public String etag(Class<?> entityType) {
+    Table table = table(entityType);
+    return "\"%s-%s-%d\"".formatted(table.name, epoch, table.writes.get());
+  }
+
+  // Sets the ETag on the response and returns true when the client's copy
+  // is current; the caller should then return null, which Spring turns
+  // into an empty 304.
+  public boolean checkNotModified(Class<?> entityType, WebRequest request) {
+    return request.checkNotModified(etag(entityType));
+  }
+
+  static String entityName(Class<?> entityType) {
+    Entity entity = entityType.getAnnotation(Entity.class);
+    return entity == null || entity.name().isEmpty() ? entityType.getSimpleName().toLowerCase() : entity.name();
+  }
+}
@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.entities.PartialDates;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Fills Book.publishedOn and Movie.releasedOn for rows written before
+// those columns existed; V9 adds them empty.  Runs once the application
+// is ready and walks the unfilled rows in id order, CHUNK_SIZE at a time;
+// each chunk's dates go out as one JDBC batch in one transaction.  The
+// updates touch the typed column only, so version and lastModified stay
+// as they are.  Rows whose text is not a date stay null: they are read
+// again on every start, but nothing is written for them.
+
+@Slf4j
+@Service("dateBackfill")
+public class DateBackfillService {
+
+  static final int CHUNK_SIZE = 500;
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Autowired
+  MovieRepository movieRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired(required = false)
+  PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  void buildTransactionTemplate() {
+    if (transactionManager != null) {
+      transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    int books = backfill(bookRepository::findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc,
+        Book::getId, Book::getDate, "update books set published_on = ? where id = ?");
+    int movies = backfill(movieRepository::findByIdGreaterThanAndReleasedOnIsNullAndReleaseDateIsNotNullOrderByIdAsc,
+        Movie::getId, Movie::getReleaseDate, "update movie set released_on = ? where id = ?");
+    if (books > 0 || movies > 0) {
+      log.info("backfilled typed dates for {} books and {} movies", books, movies);
+    }
+  }
+
+  <T> int backfill(BiFunction<Long, Pageable, List<T>> unfilled, ToLongFunction<T> id,
+      Function<T, String> text, String update) {
+    int filled = 0;
+    long after = 0;
+    List<T> rows;
+    do {
+      rows = unfilled.apply(after, PageRequest.of(0, CHUNK_SIZE));
+      List<Object[]> dates = new ArrayList<>(rows.size());
+      for (T row : rows) {
+        after = id.applyAsLong(row);
+        LocalDate date = PartialDates.parse(text.apply(row));
+        if (date != null) {
+          dates.add(new Object[] { date, after });
+        }
+      }
+      if (!dates.isEmpty()) {
+        writeChunk(update, dates);
+        filled += dates.size();
+      }
+    } while (rows.size() == CHUNK_SIZE);
+    return filled;
+  }
+
+  private void writeChunk(String update, List<Object[]> dates) {
+    if (transactionTemplate == null) {
+      jdbcTemplate.batchUpdate(update, dates);
+    } else {
+      transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(update, dates));
+    }
+  }
+}
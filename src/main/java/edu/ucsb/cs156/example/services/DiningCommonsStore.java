@@ -0,0 +1,98 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// Read-only copy of the ucsbdiningcommons table.  The table is tiny and
+// almost never written, so reads are served from an immutable snapshot
+// that also holds the JSON for /all and for each commons, rendered once
+// when the snapshot is built.  Every write through the controller calls
+// refresh(), which builds a new snapshot and swaps it in atomically;
+// readers never see a half-built one.  The snapshot also holds a GeoIndex
+// of the commons' coordinates for nearest().
+
+@Slf4j
+@Service("diningCommonsStore")
+public class DiningCommonsStore {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  private volatile Snapshot snapshot;
+
+  record Snapshot(Map<String, UCSBDiningCommons> byCode, byte[] allJson, Map<String, byte[]> jsonByCode,
+      GeoIndex<UCSBDiningCommons> locations) {
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void refresh() {
+    List<UCSBDiningCommons> all = new ArrayList<>();
+    ucsbDiningCommonsRepository.findAll().forEach(all::add);
+
+    Map<String, UCSBDiningCommons> byCode = new LinkedHashMap<>();
+    Map<String, byte[]> jsonByCode = new LinkedHashMap<>();
+    try {
+      for (UCSBDiningCommons commons : all) {
+        byCode.put(commons.getCode(), commons);
+        jsonByCode.put(commons.getCode(), mapper.writeValueAsBytes(commons));
+      }
+      snapshot = new Snapshot(Collections.unmodifiableMap(byCode), mapper.writeValueAsBytes(all),
+          Collections.unmodifiableMap(jsonByCode),
+          new GeoIndex<>(all, UCSBDiningCommons::getLatitude, UCSBDiningCommons::getLongitude));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("could not render ucsbdiningcommons as JSON", e);
+    }
+    log.info("diningCommonsStore loaded {} commons", all.size());
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      refresh();
+      current = snapshot;
+    }
+    return current;
+  }
+
+  // The returned bytes are shared by every request; callers must not modify them.
+  public byte[] getAllJson() {
+    return snapshot().allJson();
+  }
+
+  public Optional<byte[]> getJson(String code) {
+    return Optional.ofNullable(snapshot().jsonByCode().get(code));
+  }
+
+  // Rows in the snapshot are shared; treat them as read-only.
+  public Optional<UCSBDiningCommons> get(String code) {
+    return Optional.ofNullable(snapshot().byCode().get(code));
+  }
+
+  public List<UCSBDiningCommons> getAll() {
+    return List.copyOf(snapshot().byCode().values());
+  }
+
+  // Commons without coordinates are never returned.
+  public List<GeoIndex.Hit<UCSBDiningCommons>> nearest(double latitude, double longitude, int k, Double maxMetres) {
+    return snapshot().locations().nearest(latitude, longitude, k, maxMetres);
+  }
+}
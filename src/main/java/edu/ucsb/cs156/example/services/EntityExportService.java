@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+
+// Writes rows to an output stream as they are read from a repository
+// Stream, so that exporting a table never materializes the whole result.
+// Rows go out either as newline-delimited JSON or as one JSON array.
+//
+// Callers must run inside a (read-only) transaction so that the stream is
+// backed by an open JDBC cursor.  Each row is detached from the persistence
+// context once it has been written, which keeps heap use flat no matter how
+// many rows the table has.
+
+@Slf4j
+@Service("entityExport")
+public class EntityExportService {
+
+  public static final String NDJSON = "application/x-ndjson";
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired(required = false)
+  EntityManagerFactory entityManagerFactory;
+
+  // rows between flushes; 0 or less flushes only when the export ends
+  @Value("${app.export.flushEvery:500}")
+  int flushEvery = 500;
+
+  public <T> long writeNdjson(Stream<T> rows, OutputStream out) throws IOException {
+    try (JsonGenerator generator = createGenerator(out)) {
+      generator.setRootValueSeparator(null);
+      long count = writeRows(rows, generator, true);
+      log.info("exported {} rows as ndjson", count);
+      return count;
+    }
+  }
+
+  public <T> long writeJsonArray(Stream<T> rows, OutputStream out) throws IOException {
+    try (JsonGenerator generator = createGenerator(out)) {
+      generator.writeStartArray();
+      long count = writeRows(rows, generator, false);
+      generator.writeEndArray();
+      log.info("exported {} rows as a JSON array", count);
+      return count;
+    }
+  }
+
+  private JsonGenerator createGenerator(OutputStream out) throws IOException {
+    JsonGenerator generator = mapper.getFactory().createGenerator(out);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    return generator;
+  }
+
+  private <T> long writeRows(Stream<T> rows, JsonGenerator generator, boolean newlines) throws IOException {
+    EntityManager entityManager = transactionalEntityManager();
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    Iterator<T> it = rows.iterator();
+    while (it.hasNext()) {
+      T row = it.next();
+      writer.writeValue(generator, row);
+      if (newlines) {
+        generator.writeRaw('\n');
+      }
+      detach(entityManager, row);
+      count++;
+      if (flushEvery > 0 && count % flushEvery == 0) {
+        generator.flush();
+      }
+    }
+    return count;
+  }
+
+  private EntityManager transactionalEntityManager() {
+    if (entityManagerFactory == null) {
+      return null;
+    }
+    return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+  }
+
+  // rows that are not entities (projections, maps) were never managed
+  private void detach(EntityManager entityManager, Object row) {
+    if (entityManager != null && row != null && row.getClass().isAnnotationPresent(Entity.class)
+        && entityManager.contains(row)) {
+      entityManager.detach(row);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.springframework.stereotype.Service;
+
+// Backs the fields= selector on list endpoints.  Only the requested
+// columns are selected, as a tuple query, so Hibernate returns plain
+// values: no entities are built, nothing is added to the persistence
+// context and there is no dirty checking at flush.  Field names are the
+// entity's basic (singular) attributes; anything else is a bad request.
+
+@Service("fieldProjection")
+public class FieldProjectionService {
+
+  @PersistenceContext
+  EntityManager entityManager;
+
+  public <T> List<Map<String, Object>> findAll(Class<T> type, String fields) {
+    EntityType<T> entityType = entityManager.getMetamodel().entity(type);
+    Map<String, SingularAttribute<? super T, ?>> attributes = new LinkedHashMap<>();
+    SingularAttribute<? super T, ?> id = null;
+    for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+      attributes.put(attribute.getName(), attribute);
+      if (attribute.isId()) {
+        id = attribute;
+      }
+    }
+    List<String> names = parseFields(fields, attributes.keySet());
+
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<T> root = query.from(entityType);
+    List<Selection<?>> selections = new ArrayList<>(names.size());
+    for (String name : names) {
+      selections.add(root.get(attributes.get(name)).alias(name));
+    }
+    query.multiselect(selections);
+    if (id != null) {
+      query.orderBy(cb.asc(root.get(id)));
+    }
+
+    List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+    List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (String name : names) {
+        row.put(name, tuple.get(name));
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  // Splits a comma separated list, keeping the caller's order and dropping
+  // blanks and repeats.
+  static List<String> parseFields(String fields, Collection<String> allowed) {
+    Set<String> names = new LinkedHashSet<>();
+    for (String name : fields.split(",")) {
+      String trimmed = name.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (!allowed.contains(trimmed)) {
+        throw new BadRequestException("unknown field '%s'; expected some of %s".formatted(trimmed, new TreeSet<>(allowed)));
+      }
+      names.add(trimmed);
+    }
+    if (names.isEmpty()) {
+      throw new BadRequestException("fields must name at least one of %s".formatted(new TreeSet<>(allowed)));
+    }
+    return List.copyOf(names);
+  }
+}
@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+// Immutable k-d tree over latitude/longitude points, for "nearest k" and
+// "within r metres" lookups without scanning every point.
+//
+// Each point is stored as a unit vector on the sphere.  The straight-line
+// (chord) distance between unit vectors grows with the great-circle
+// distance, so a plain 3-d k-d tree ranks points exactly as haversine
+// would, with no special cases at the poles or the antimeridian.  The
+// tree is a sorted array: the median of each range is the node, the
+// halves on either side its subtrees.  Reported distances are haversine
+// metres.
+
+public class GeoIndex<T> {
+
+  public static final double EARTH_RADIUS_METRES = 6_371_008.8;
+
+  private final List<T> items;
+  private final double[][] points;
+  private final double[] latitudes;
+  private final double[] longitudes;
+
+  public record Hit<T>(T item, double metres) {
+  }
+
+  // Items for which lat or lon returns null are left out.
+  public GeoIndex(Iterable<T> rows, Function<T, Double> lat, Function<T, Double> lon) {
+    List<T> located = new ArrayList<>();
+    List<double[]> coordinates = new ArrayList<>();
+    List<double[]> vectors = new ArrayList<>();
+    for (T row : rows) {
+      Double latitude = lat.apply(row);
+      Double longitude = lon.apply(row);
+      if (latitude != null && longitude != null) {
+        located.add(row);
+        coordinates.add(new double[] { latitude, longitude });
+        vectors.add(vector(latitude, longitude));
+      }
+    }
+    Integer[] order = new Integer[located.size()];
+    Arrays.setAll(order, i -> i);
+    build(order, vectors, 0, order.length, 0);
+    items = new ArrayList<>(order.length);
+    points = new double[order.length][];
+    latitudes = new double[order.length];
+    longitudes = new double[order.length];
+    for (int i = 0; i < order.length; i++) {
+      items.add(located.get(order[i]));
+      points[i] = vectors.get(order[i]);
+      latitudes[i] = coordinates.get(order[i])[0];
+      longitudes[i] = coordinates.get(order[i])[1];
+    }
+  }
+
+  public int size() {
+    return items.size();
+  }
+
+  // Up to k items, closest first, no further than maxMetres when it is not null.
+  public List<Hit<T>> nearest(double latitude, double longitude, int k, Double maxMetres) {
+    if (k < 1 || items.isEmpty()) {
+      return List.of();
+    }
+    double[] target = vector(latitude, longitude);
+    double limit = maxMetres == null ? Double.POSITIVE_INFINITY : chordSquared(maxMetres);
+    // farthest of the best k so far on top
+    PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingDouble(
+        (Integer i) -> distanceSquared(points[i], target)).reversed());
+    search(target, 0, items.size(), 0, k, limit, best);
+    List<Integer> found = new ArrayList<>(best);
+    found.sort(Comparator.comparingDouble(i -> distanceSquared(points[i], target)));
+    List<Hit<T>> hits = new ArrayList<>(found.size());
+    for (int i : found) {
+      hits.add(new Hit<>(items.get(i), haversine(latitude, longitude, latitudes[i], longitudes[i])));
+    }
+    return hits;
+  }
+
+  private void search(double[] target, int from, int to, int axis, int k, double limit, PriorityQueue<Integer> best) {
+    if (from >= to) {
+      return;
+    }
+    int node = (from + to) >>> 1;
+    double d = distanceSquared(points[node], target);
+    if (d <= limit && (best.size() < k || d < distanceSquared(points[best.peek()], target))) {
+      best.add(node);
+      if (best.size() > k) {
+        best.poll();
+      }
+    }
+    double offset = target[axis] - points[node][axis];
+    int next = (axis + 1) % 3;
+    if (offset < 0) {
+      search(target, from, node, next, k, limit, best);
+    } else {
+      search(target, node + 1, to, next, k, limit, best);
+    }
+    // the other side can only help if the splitting plane is closer than
+    // both the limit and the worst of the best k
+    double worst = best.size() < k ? limit : Math.min(limit, distanceSquared(points[best.peek()], target));
+    if (offset * offset <= worst) {
+      if (offset < 0) {
+        search(target, node + 1, to, next, k, limit, best);
+      } else {
+        search(target, from, node, next, k, limit, best);
+      }
+    }
+  }
+
+  private static void build(Integer[] order, List<double[]> vectors, int from, int to, int axis) {
+    if (to - from <= 1) {
+      return;
+    }
+    Arrays.sort(order, from, to, Comparator.comparingDouble(i -> vectors.get(i)[axis]));
+    int node = (from + to) >>> 1;
+    build(order, vectors, from, node, (axis + 1) % 3);
+    build(order, vectors, node + 1, to, (axis + 1) % 3);
+  }
+
+  private static double[] vector(double latitude, double longitude) {
+    double phi = Math.toRadians(latitude);
+    double lambda = Math.toRadians(longitude);
+    return new double[] { Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi) };
+  }
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private static double chordSquared(double metres) {
+    double chord = 2 * Math.sin(Math.min(metres / EARTH_RADIUS_METRES, Math.PI) / 2);
+    return chord * chord;
+  }
+
+  public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dPhi = Math.toRadians(lat2 - lat1);
+    double dLambda = Math.toRadians(lon2 - lon1);
+    double h = Math.pow(Math.sin(dPhi / 2), 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLambda / 2), 2);
+    return 2 * EARTH_RADIUS_METRES * Math.asin(Math.min(1, Math.sqrt(h)));
+  }
+}
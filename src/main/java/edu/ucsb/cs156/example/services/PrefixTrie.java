@@ -0,0 +1,183 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+// Counts how many rows hold each value of one text column and returns the
+// most common values that start with a prefix, for as-you-type
+// suggestions.  Prefixes match case-insensitively; a value is returned as
+// it was first added.
+//
+// Nodes live in parallel arrays rather than one object per node: the
+// letter on the edge into the node, its parent, first child and next
+// sibling (siblings are kept in letter order), how many rows hold the
+// value ending there, and the largest such count anywhere below it.  The
+// last lets suggest() visit subtrees best first and stop once it has
+// enough, so the cost depends on the number of suggestions, not on how
+// many values share the prefix.  Values are interned.
+//
+// Nodes of values whose count drops to zero are not reclaimed; the trie
+// is rebuilt at startup.  Not thread safe.
+
+public class PrefixTrie {
+
+  private static final int ROOT = 0;
+  private static final int NONE = -1;
+
+  private char[] letter = new char[16];
+  private int[] parent = new int[16];
+  private int[] firstChild = new int[16];
+  private int[] nextSibling = new int[16];
+  private int[] count = new int[16];
+  private int[] best = new int[16];
+  private String[] value = new String[16];
+  private int nodes;
+
+  public PrefixTrie() {
+    newNode(ROOT, '\0');
+    parent[ROOT] = NONE;
+  }
+
+  public int nodeCount() {
+    return nodes;
+  }
+
+  public void add(String text) {
+    if (text == null || text.isBlank()) {
+      return;
+    }
+    int node = ROOT;
+    String key = key(text);
+    for (int i = 0; i < key.length(); i++) {
+      node = child(node, key.charAt(i), true);
+    }
+    if (count[node]++ == 0) {
+      value[node] = text.strip().intern();
+    }
+    for (int n = node; n != NONE && best[n] < count[node]; n = parent[n]) {
+      best[n] = count[node];
+    }
+  }
+
+  public void remove(String text) {
+    if (text == null || text.isBlank()) {
+      return;
+    }
+    int node = find(key(text));
+    if (node == NONE || count[node] == 0) {
+      return;
+    }
+    if (--count[node] == 0) {
+      value[node] = null;
+    }
+    for (int n = node; n != NONE; n = parent[n]) {
+      int max = count[n];
+      for (int c = firstChild[n]; c != NONE; c = nextSibling[c]) {
+        max = Math.max(max, best[c]);
+      }
+      if (max == best[n]) {
+        break;
+      }
+      best[n] = max;
+    }
+  }
+
+  public int count(String text) {
+    int node = text == null ? NONE : find(key(text));
+    return node == NONE ? 0 : count[node];
+  }
+
+  // Most common values first; equally common values in alphabetical order.
+  public List<String> suggest(String prefix, int limit) {
+    List<String> suggestions = new ArrayList<>();
+    String startKey = prefix == null ? "" : key(prefix);
+    int start = find(startKey);
+    if (start == NONE || best[start] == 0 || limit < 1) {
+      return suggestions;
+    }
+    // A subtree is queued under its best count and its own prefix, which
+    // sort no later than any value inside it, so values come off the
+    // queue in order.
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingInt(Candidate::score).reversed()
+        .thenComparing(Candidate::path)
+        .thenComparing(Candidate::subtree));
+    queue.add(new Candidate(start, best[start], startKey, true));
+    while (!queue.isEmpty() && suggestions.size() < limit) {
+      Candidate top = queue.poll();
+      if (!top.subtree()) {
+        suggestions.add(value[top.node()]);
+        continue;
+      }
+      if (count[top.node()] > 0) {
+        queue.add(new Candidate(top.node(), count[top.node()], top.path(), false));
+      }
+      for (int c = firstChild[top.node()]; c != NONE; c = nextSibling[c]) {
+        if (best[c] > 0) {
+          queue.add(new Candidate(c, best[c], top.path() + letter[c], true));
+        }
+      }
+    }
+    return suggestions;
+  }
+
+  private record Candidate(int node, int score, String path, boolean subtree) {
+  }
+
+  private static String key(String text) {
+    return text.strip().toLowerCase(Locale.ROOT);
+  }
+
+  private int find(String key) {
+    int node = ROOT;
+    for (int i = 0; i < key.length() && node != NONE; i++) {
+      node = child(node, key.charAt(i), false);
+    }
+    return node;
+  }
+
+  private int child(int node, char c, boolean create) {
+    int previous = NONE;
+    int child = firstChild[node];
+    while (child != NONE && letter[child] < c) {
+      previous = child;
+      child = nextSibling[child];
+    }
+    if (child != NONE && letter[child] == c) {
+      return child;
+    }
+    if (!create) {
+      return NONE;
+    }
+    int added = newNode(node, c);
+    nextSibling[added] = child;
+    if (previous == NONE) {
+      firstChild[node] = added;
+    } else {
+      nextSibling[previous] = added;
+    }
+    return added;
+  }
+
+  private int newNode(int parentNode, char c) {
+    if (nodes == letter.length) {
+      int capacity = nodes * 2;
+      letter = Arrays.copyOf(letter, capacity);
+      parent = Arrays.copyOf(parent, capacity);
+      firstChild = Arrays.copyOf(firstChild, capacity);
+      nextSibling = Arrays.copyOf(nextSibling, capacity);
+      count = Arrays.copyOf(count, capacity);
+      best = Arrays.copyOf(best, capacity);
+      value = Arrays.copyOf(value, capacity);
+    }
+    int node = nodes++;
+    letter[node] = c;
+    parent[node] = parentNode;
+    firstChild[node] = NONE;
+    nextSibling[node] = NONE;
+    return node;
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.RouteTiming;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+// Per-route latency histograms filled in by LoggingAspect.  A route is the
+// HTTP method plus the matched mapping pattern (e.g. "GET /api/books"), so
+// path variables do not create a new histogram per id.
+
+@Component
+public class RequestTimings {
+
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  public void record(String route, long elapsedNanos) {
+    histograms.computeIfAbsent(route, k -> new LatencyHistogram())
+        .record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+  }
+
+  public List<RouteTiming> getTimings() {
+    return histograms.entrySet().stream()
+        .map(e -> timing(e.getKey(), e.getValue()))
+        .sorted((a, b) -> a.getRoute().compareTo(b.getRoute()))
+        .toList();
+  }
+
+  public void reset() {
+    histograms.clear();
+  }
+
+  private static RouteTiming timing(String route, LatencyHistogram histogram) {
+    long count = histogram.getCount();
+    return RouteTiming.builder()
+        .route(route)
+        .count(count)
+        .meanMillis(count == 0 ? 0 : millis(histogram.getTotal()) / count)
+        .p50Millis(millis(histogram.percentile(50)))
+        .p95Millis(millis(histogram.percentile(95)))
+        .p99Millis(millis(histogram.percentile(99)))
+        .maxMillis(millis(histogram.getMax()))
+        .build();
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
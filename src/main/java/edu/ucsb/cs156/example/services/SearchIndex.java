@@ -0,0 +1,248 @@
+package edu.ucsb.cs156.example.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over a few text fields of one table.
+//
+// Text is folded (lower case, accents stripped) and split into words.
+// Each word maps to the rows containing it and how often it occurs in
+// each field.  A query word matches
+//   - the same word exactly,
+//   - failing that, longer words it is a prefix of ("pott" -> "potter"),
+//   - failing both, words one or two edits away ("hary" -> "harry").
+// Rows are ranked by BM25 with per-field weights, so a match in a short,
+// heavily weighted field (a title) beats one in a long, light field, and
+// rows matching more of the query words rank higher.  Inexact matches
+// count for less than exact ones.
+//
+// Reads share a lock; put and remove take it exclusively.
+
+public class SearchIndex {
+
+  static final double K1 = 1.2;
+  static final double B = 0.75;
+  static final double PREFIX_WEIGHT = 0.7;
+  static final double[] FUZZY_WEIGHTS = { 1.0, 0.5, 0.25 };
+  static final int MAX_EXPANSIONS = 50;
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+  private final double[] weights;
+
+  // word -> row id -> occurrences per field
+  private final NavigableMap<String, Map<Long, int[]>> postings = new TreeMap<>();
+  // row id -> words per field, kept so that a row can be removed
+  private final Map<Long, String[][]> rows = new HashMap<>();
+  private final long[] totalLengths;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public record Hit(long id, double score) {
+  }
+
+  // one weight per field; put() takes the fields' text in the same order
+  public SearchIndex(double... weights) {
+    this.weights = weights.clone();
+    totalLengths = new long[weights.length];
+  }
+
+  public void put(long id, String... text) {
+    if (text.length != weights.length) {
+      throw new IllegalArgumentException("expected %d fields, got %d".formatted(weights.length, text.length));
+    }
+    String[][] words = new String[weights.length][];
+    for (int f = 0; f < weights.length; f++) {
+      words[f] = tokenize(text[f]).toArray(String[]::new);
+    }
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+      rows.put(id, words);
+      for (int f = 0; f < weights.length; f++) {
+        totalLengths[f] += words[f].length;
+        for (String word : words[f]) {
+          postings.computeIfAbsent(word, w -> new HashMap<>())
+              .computeIfAbsent(id, i -> new int[weights.length])[f]++;
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeLocked(long id) {
+    String[][] words = rows.remove(id);
+    if (words == null) {
+      return;
+    }
+    for (int f = 0; f < weights.length; f++) {
+      totalLengths[f] -= words[f].length;
+      for (String word : words[f]) {
+        Map<Long, int[]> postingList = postings.get(word);
+        if (postingList != null && postingList.remove(id) != null && postingList.isEmpty()) {
+          postings.remove(word);
+        }
+      }
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return rows.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Best matches first; ties go to the lower id.
+  public List<Hit> search(String query, int limit) {
+    Set<String> queryWords = new LinkedHashSet<>(tokenize(query));
+    if (queryWords.isEmpty() || limit < 1) {
+      return List.of();
+    }
+    lock.readLock().lock();
+    try {
+      Map<Long, Double> scores = new HashMap<>();
+      for (String queryWord : queryWords) {
+        // a row scores once per query word, through its best matching word
+        Map<Long, Double> best = new HashMap<>();
+        expand(queryWord).forEach((word, weight) -> score(word, weight, best));
+        best.forEach((id, score) -> scores.merge(id, score, Double::sum));
+      }
+      return scores.entrySet().stream()
+          .map(e -> new Hit(e.getKey(), e.getValue()))
+          .sorted(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id))
+          .limit(limit)
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // index words a query word stands for, with how much each counts
+  private Map<String, Double> expand(String queryWord) {
+    Map<String, Double> words = new LinkedHashMap<>();
+    if (postings.containsKey(queryWord)) {
+      words.put(queryWord, 1.0);
+    }
+    for (String word : postings.tailMap(queryWord, false).keySet()) {
+      if (!word.startsWith(queryWord) || words.size() >= MAX_EXPANSIONS) {
+        break;
+      }
+      words.put(word, PREFIX_WEIGHT);
+    }
+    if (!words.isEmpty()) {
+      return words;
+    }
+    int maxEdits = queryWord.length() >= 8 ? 2 : queryWord.length() >= 4 ? 1 : 0;
+    if (maxEdits == 0) {
+      return words;
+    }
+    for (String word : postings.keySet()) {
+      if (Math.abs(word.length() - queryWord.length()) > maxEdits) {
+        continue;
+      }
+      int edits = editDistance(queryWord, word, maxEdits);
+      if (edits <= maxEdits) {
+        words.put(word, FUZZY_WEIGHTS[edits]);
+        if (words.size() >= MAX_EXPANSIONS) {
+          break;
+        }
+      }
+    }
+    return words;
+  }
+
+  private void score(String word, double weight, Map<Long, Double> best) {
+    Map<Long, int[]> postingList = postings.get(word);
+    double n = rows.size();
+    double df = postingList.size();
+    double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    for (Map.Entry<Long, int[]> entry : postingList.entrySet()) {
+      int[] counts = entry.getValue();
+      String[][] words = rows.get(entry.getKey());
+      double score = 0;
+      for (int f = 0; f < weights.length; f++) {
+        if (counts[f] == 0) {
+          continue;
+        }
+        double averageLength = Math.max(1.0, totalLengths[f] / n);
+        double norm = 1 - B + B * words[f].length / averageLength;
+        score += weights[f] * counts[f] * (K1 + 1) / (counts[f] + K1 * norm);
+      }
+      best.merge(entry.getKey(), weight * idf * score, Math::max);
+    }
+  }
+
+  // Optimal string alignment distance (adjacent swaps count as one edit);
+  // gives up with max + 1 as soon as the distance must exceed max.
+  static int editDistance(String a, String b, int max) {
+    int[] previous2 = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = current[0];
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          d = Math.min(d, previous2[j - 2] + 1);
+        }
+        current[j] = d;
+        rowMin = Math.min(rowMin, d);
+      }
+      if (rowMin > max) {
+        return max + 1;
+      }
+      int[] recycled = previous2;
+      previous2 = previous;
+      previous = current;
+      current = recycled;
+    }
+    return Math.min(previous[b.length()], max + 1);
+  }
+
+  static List<String> tokenize(String text) {
+    if (text == null || text.isBlank()) {
+      return List.of();
+    }
+    String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+        .toLowerCase(Locale.ROOT);
+    List<String> words = new ArrayList<>();
+    for (String word : SEPARATORS.split(folded)) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+}
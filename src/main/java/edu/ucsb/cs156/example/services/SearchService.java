@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+// Full-text search over books (title, author) and movies (movieName,
+// directorName), answered from SearchIndex instead of LIKE scans.  A
+// title match counts twice as much as a match on the author or director.
+// The indexes hold only ids: the hits are loaded with one findAllById and
+// kept in rank order.  rebuild() swaps in whole new indexes, so searches
+// running meanwhile use the old ones.
+
+@Slf4j
+@Service("search")
+public class SearchService {
+
+  static final double TITLE_WEIGHT = 2.0;
+  static final double PERSON_WEIGHT = 1.0;
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Autowired
+  MovieRepository movieRepository;
+
+  private volatile SearchIndex books = new SearchIndex(TITLE_WEIGHT, PERSON_WEIGHT);
+  private volatile SearchIndex movies = new SearchIndex(TITLE_WEIGHT, PERSON_WEIGHT);
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    SearchIndex newBooks = new SearchIndex(TITLE_WEIGHT, PERSON_WEIGHT);
+    bookRepository.findAll().forEach(book -> newBooks.put(book.getId(), book.getTitle(), book.getAuthor()));
+    SearchIndex newMovies = new SearchIndex(TITLE_WEIGHT, PERSON_WEIGHT);
+    movieRepository.findAll().forEach(movie -> newMovies.put(movie.getId(), movie.getMovieName(), movie.getDirectorName()));
+    books = newBooks;
+    movies = newMovies;
+    log.info("search indexes built: {} books, {} movies", newBooks.size(), newMovies.size());
+  }
+
+  public void index(Book book) {
+    books.put(book.getId(), book.getTitle(), book.getAuthor());
+  }
+
+  public void index(Movie movie) {
+    movies.put(movie.getId(), movie.getMovieName(), movie.getDirectorName());
+  }
+
+  public void removeBook(long id) {
+    books.remove(id);
+  }
+
+  public void removeMovie(long id) {
+    movies.remove(id);
+  }
+
+  public List<Book> searchBooks(String query, int limit) {
+    return load(books.search(query, limit), bookRepository, Book::getId);
+  }
+
+  public List<Movie> searchMovies(String query, int limit) {
+    return load(movies.search(query, limit), movieRepository, Movie::getId);
+  }
+
+  // Rows deleted since they were indexed are skipped.
+  private static <T> List<T> load(List<SearchIndex.Hit> hits, CrudRepository<T, Long> repository,
+      Function<T, Long> id) {
+    if (hits.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, T> byId = new HashMap<>();
+    repository.findAllById(hits.stream().map(SearchIndex.Hit::id).toList())
+        .forEach(row -> byId.put(id.apply(row), row));
+    return hits.stream().map(hit -> byId.get(hit.id())).filter(Objects::nonNull).toList();
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.GenerationReport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+// Command-line entry point for SyntheticDataService, e.g.
+//
+//   java -jar example.jar --spring.main.web-application-type=none \
+//       --app.synthetic.entities=student,vehicle --app.synthetic.rows=1000000 --app.synthetic.seed=42
+//
+// Only present when app.synthetic.entities is set.  Exits once the rows
+// are written unless app.synthetic.exit=false.
+
+@Slf4j
+@Component
+@ConditionalOnProperty("app.synthetic.entities")
+public class SyntheticDataRunner implements ApplicationRunner {
+
+  @Autowired
+  SyntheticDataService syntheticDataService;
+
+  @Autowired
+  ApplicationContext context;
+
+  @Value("${app.synthetic.entities}")
+  List<String> entities;
+
+  @Value("${app.synthetic.rows:1000}")
+  long rows = 1000;
+
+  @Value("${app.synthetic.seed:1}")
+  long seed = 1;
+
+  @Value("${app.synthetic.start:0}")
+  long start = 0;
+
+  @Value("${app.synthetic.exit:true}")
+  boolean exit = true;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    List<GenerationReport> reports = syntheticDataService.generate(entities, start, rows, seed);
+    long failed = 0;
+    for (GenerationReport report : reports) {
+      log.info("synthetic data: {}", report);
+      failed += report.getFailed();
+    }
+    if (exit) {
+      int status = failed == 0 ? 0 : 1;
+      System.exit(SpringApplication.exit(context, () -> status));
+    }
+  }
+}
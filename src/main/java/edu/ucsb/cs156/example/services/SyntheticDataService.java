@@ -0,0 +1,316 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.EnergyDrink;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.entities.Vehicle;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.GenerationReport;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.EnergyDrinkRepository;
+import edu.ucsb.cs156.example.repositories.MovieRepository;
+import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.repositories.VehicleRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Fills tables with synthetic rows for scale testing.  Row i of a run is
+// computed only from (seed, i), so the same seed and range always give the
+// same data no matter how the work is split between threads.  Values under
+// a unique constraint (student perm and email, vehicle licence, energy
+// drink calories, user email) contain both the seed and the index, so runs
+// with different seeds or non-overlapping ranges never collide; repeating
+// a run fails on those constraints instead of duplicating rows.
+//
+// Rows are saved in chunks of app.synthetic.chunkSize, each in its own
+// transaction, by app.synthetic.threads threads; Hibernate sends each
+// chunk as JDBC batches.  Once a chunk commits its rows are added to the
+// in-memory search, suggestion and upcoming-date indexes, as any other
+// write would add them.
+
+@Slf4j
+@Service("syntheticData")
+public class SyntheticDataService {
+
+  public static final List<String> ENTITIES =
+      List.of("student", "vehicle", "book", "movie", "ucsbdate", "energydrink", "user");
+
+  @Autowired
+  StudentRepository studentRepository;
+
+  @Autowired
+  VehicleRepository vehicleRepository;
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Autowired
+  MovieRepository movieRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  EnergyDrinkRepository energyDrinkRepository;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  SearchService searchService;
+
+  @Autowired
+  AutocompleteService autocompleteService;
+
+  @Autowired
+  UpcomingDatesService upcomingDatesService;
+
+  @Autowired(required = false)
+  PlatformTransactionManager transactionManager;
+
+  @Value("${app.synthetic.chunkSize:1000}")
+  int chunkSize = 1000;
+
+  @Value("${app.synthetic.threads:4}")
+  int threads = 4;
+
+  @Value("${app.synthetic.maxRows:5000000}")
+  long maxRows = 5_000_000;
+
+  private TransactionTemplate transactionTemplate;
+
+  private static final String[] FIRST_NAMES = { "Ana", "Ben", "Chen", "Dana", "Eli", "Fatima", "Gus", "Hana",
+      "Ivan", "Jade", "Kai", "Lena", "Mateo", "Nia", "Omar", "Priya" };
+  private static final String[] LAST_NAMES = { "Garcia", "Nguyen", "Smith", "Kim", "Patel", "Lopez", "Brown",
+      "Chen", "Martinez", "Johnson", "Singh", "Lee" };
+  private static final String[] MAJORS = { "CMPSC", "MATH", "PSTAT", "ECON", "CHEM", "PHYS", "MCDB", "ENGL" };
+  private static final String[] BRANDS = { "Toyota", "Honda", "Ford", "Subaru", "Tesla", "Mazda", "Kia", "BMW" };
+  private static final String[] MODELS = { "Sedan", "Coupe", "Wagon", "Hatchback", "SUV", "Truck" };
+  private static final String[] FLAVORS = { "Original", "Berry", "Citrus", "Mango", "Tropical", "Sugar Free" };
+  private static final String[] WORDS = { "Silent", "Golden", "Last", "Hidden", "Broken", "Endless", "Distant",
+      "Summer", "River", "Night", "City", "Garden", "Storm", "Letter", "Island", "Promise" };
+
+  @PostConstruct
+  void buildTransactionTemplate() {
+    if (transactionManager != null) {
+      transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+  }
+
+  public List<GenerationReport> generate(List<String> entities, long start, long rows, long seed) {
+    if (entities == null || entities.isEmpty()) {
+      throw new BadRequestException("entities must name at least one of %s".formatted(ENTITIES));
+    }
+    for (String entity : entities) {
+      if (!ENTITIES.contains(entity)) {
+        throw new BadRequestException("unknown entity %s; expected one of %s".formatted(entity, ENTITIES));
+      }
+    }
+    if (rows < 1 || rows > maxRows) {
+      throw new BadRequestException("rows must be between 1 and %d".formatted(maxRows));
+    }
+    if (start < 0) {
+      throw new BadRequestException("start must not be negative");
+    }
+    List<GenerationReport> reports = new ArrayList<>();
+    for (String entity : entities) {
+      reports.add(generate(entity, start, rows, seed));
+    }
+    return reports;
+  }
+
+  private GenerationReport generate(String entity, long start, long rows, long seed) {
+    return switch (entity) {
+      case "student" -> generate(entity, studentRepository, SyntheticDataService::student, autocompleteService::index, start, rows, seed);
+      case "vehicle" -> generate(entity, vehicleRepository, SyntheticDataService::vehicle, autocompleteService::index, start, rows, seed);
+      case "book" -> generate(entity, bookRepository, SyntheticDataService::book, book -> {
+        searchService.index(book);
+        autocompleteService.index(book);
+      }, start, rows, seed);
+      case "movie" -> generate(entity, movieRepository, SyntheticDataService::movie, searchService::index, start, rows, seed);
+      case "ucsbdate" -> generate(entity, ucsbDateRepository, SyntheticDataService::ucsbDate, upcomingDatesService::index, start, rows, seed);
+      case "energydrink" -> generate(entity, energyDrinkRepository, SyntheticDataService::energyDrink, row -> { }, start, rows, seed);
+      default -> generate(entity, userRepository, SyntheticDataService::user, row -> { }, start, rows, seed);
+    };
+  }
+
+  interface RowFactory<T> {
+    T row(long seed, long index, SplittableRandom random);
+  }
+
+  private <T> GenerationReport generate(String entity, CrudRepository<T, ?> repository, RowFactory<T> factory,
+      Consumer<T> index, long start, long rows, long seed) {
+    long began = System.nanoTime();
+    long end = start + rows;
+    AtomicReference<String> firstError = new AtomicReference<>();
+    long inserted = 0;
+    ExecutorService executor = Executors.newFixedThreadPool((int) Math.max(1, Math.min(threads, (rows + chunkSize - 1) / chunkSize)));
+    try {
+      List<Future<Integer>> chunks = new ArrayList<>();
+      for (long from = start; from < end; from += chunkSize) {
+        long chunkStart = from;
+        long chunkEnd = Math.min(from + chunkSize, end);
+        chunks.add(executor.submit(() -> saveChunk(repository, factory, index, seed, chunkStart, chunkEnd, firstError)));
+      }
+      for (Future<Integer> chunk : chunks) {
+        inserted += chunk.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      firstError.compareAndSet(null, "interrupted");
+    } catch (ExecutionException e) {
+      firstError.compareAndSet(null, String.valueOf(e.getCause().getMessage()));
+    } finally {
+      executor.shutdownNow();
+    }
+    long millis = Math.max(1, (System.nanoTime() - began) / 1_000_000);
+    GenerationReport report = GenerationReport.builder()
+        .entity(entity)
+        .seed(seed)
+        .start(start)
+        .inserted(inserted)
+        .failed(rows - inserted)
+        .millis(millis)
+        .rowsPerSecond(inserted * 1000.0 / millis)
+        .firstError(firstError.get())
+        .build();
+    log.info("synthetic {}: {} rows inserted, {} failed in {} ms ({} rows/s)", entity, inserted, rows - inserted,
+        millis, Math.round(report.getRowsPerSecond()));
+    return report;
+  }
+
+  private <T> int saveChunk(CrudRepository<T, ?> repository, RowFactory<T> factory, Consumer<T> index,
+      long seed, long from, long to, AtomicReference<String> firstError) {
+    List<T> rows = new ArrayList<>((int) (to - from));
+    for (long i = from; i < to; i++) {
+      rows.add(factory.row(seed, i, random(seed, i)));
+    }
+    try {
+      Iterable<T> saved = transactionTemplate == null
+          ? repository.saveAll(rows)
+          : transactionTemplate.execute(status -> repository.saveAll(rows));
+      saved.forEach(index);
+      return rows.size();
+    } catch (DataAccessException e) {
+      log.warn("synthetic chunk {}..{} failed", from, to, e);
+      firstError.compareAndSet(null, e.getMostSpecificCause().getMessage());
+      return 0;
+    }
+  }
+
+  static SplittableRandom random(long seed, long index) {
+    return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+  }
+
+  private static String pick(String[] values, SplittableRandom random) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static String date(SplittableRandom random) {
+    return "%d-%02d-%02d".formatted(1950 + random.nextInt(75), 1 + random.nextInt(12), 1 + random.nextInt(28));
+  }
+
+  private static String title(SplittableRandom random) {
+    return pick(WORDS, random) + " " + pick(WORDS, random);
+  }
+
+  static Student student(long seed, long index, SplittableRandom random) {
+    String first = pick(FIRST_NAMES, random);
+    String last = pick(LAST_NAMES, random);
+    return Student.builder()
+        .firstName(first)
+        .lastName(last)
+        .perm("%d-%d".formatted(seed, index))
+        .email("%s.%s.%d.%d@example.org".formatted(first, last, seed, index).toLowerCase())
+        .phoneNumber("805-%03d-%04d".formatted(random.nextInt(1000), random.nextInt(10000)))
+        .major(pick(MAJORS, random))
+        .build();
+  }
+
+  static Vehicle vehicle(long seed, long index, SplittableRandom random) {
+    return Vehicle.builder()
+        .brand(pick(BRANDS, random))
+        .model(pick(MODELS, random))
+        .licence("SYN%d-%d".formatted(seed, index))
+        .year(String.valueOf(1990 + random.nextInt(35)))
+        .build();
+  }
+
+  static Book book(long seed, long index, SplittableRandom random) {
+    return Book.builder()
+        .title(title(random))
+        .author(pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random))
+        .date(date(random))
+        .build();
+  }
+
+  static Movie movie(long seed, long index, SplittableRandom random) {
+    return Movie.builder()
+        .movieName(title(random))
+        .directorName(pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random))
+        .releaseDate(date(random))
+        .build();
+  }
+
+  static UCSBDate ucsbDate(long seed, long index, SplittableRandom random) {
+    int year = 2000 + random.nextInt(25);
+    int quarter = 1 + random.nextInt(4);
+    return UCSBDate.builder()
+        .quarterYYYYQ("%d%d".formatted(year, quarter))
+        .name(title(random))
+        .localDateTime(LocalDateTime.of(year, 1 + 3 * (quarter - 1) + random.nextInt(3), 1 + random.nextInt(28),
+            random.nextInt(24), random.nextInt(60)))
+        .build();
+  }
+
+  static EnergyDrink energyDrink(long seed, long index, SplittableRandom random) {
+    return EnergyDrink.builder()
+        .name(pick(WORDS, random) + " Energy")
+        .flavor(pick(FLAVORS, random))
+        // calories is a unique column, so it carries the row's identity
+        .calories("%d-%d".formatted(seed, index))
+        .build();
+  }
+
+  static User user(long seed, long index, SplittableRandom random) {
+    String first = pick(FIRST_NAMES, random);
+    String last = pick(LAST_NAMES, random);
+    return User.builder()
+        .email("user.%d.%d@example.org".formatted(seed, index))
+        .googleSub("synthetic-%d-%d".formatted(seed, index))
+        .pictureUrl("https://example.org/%d/%d.jpg".formatted(seed, index))
+        .fullName(first + " " + last)
+        .givenName(first)
+        .familyName(last)
+        .emailVerified(true)
+        .locale("en")
+        .hostedDomain("example.org")
+        .admin(false)
+        .build();
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// The next few ucsb dates, for calendar views, answered from memory.
+//
+// Dates that have not yet passed are kept sorted by (localDateTime, id),
+// so the next n are the first n at or after now, whatever the table's
+// size.  Each row's key is remembered by id so that updates and deletes,
+// which only say the id, can find the old entry.  Dates drop out once
+// they have passed: reads skip them and writes remove them.  "Passed" is
+// judged by this server's wall clock, in its default zone, since
+// localDateTime carries no zone.
+//
+// Startup loads only the dates from now on.  Reads share a lock; writes
+// take it exclusively.
+
+@Slf4j
+@Service("upcomingDates")
+public class UpcomingDatesService {
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  Clock clock = Clock.systemDefaultZone();
+
+  private record Key(LocalDateTime time, long id) {
+  }
+
+  private static final Comparator<Key> ORDER = Comparator.comparing(Key::time).thenComparingLong(Key::id);
+
+  private final NavigableMap<Key, UCSBDate> upcoming = new TreeMap<>(ORDER);
+  private final Map<Long, Key> keys = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    List<UCSBDate> rows = ucsbDateRepository.findByLocalDateTimeGreaterThanEqual(LocalDateTime.now(clock));
+    lock.writeLock().lock();
+    try {
+      upcoming.clear();
+      keys.clear();
+      rows.forEach(this::putLocked);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("upcoming dates index built: {} dates", rows.size());
+  }
+
+  public void index(UCSBDate row) {
+    lock.writeLock().lock();
+    try {
+      putLocked(row);
+      prunePassedLocked();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    lock.writeLock().lock();
+    try {
+      Key key = keys.remove(id);
+      if (key != null) {
+        upcoming.remove(key);
+      }
+      prunePassedLocked();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Soonest first; dates at the same time in id order.
+  public List<UCSBDate> upcoming(int n) {
+    Key now = new Key(LocalDateTime.now(clock), Long.MIN_VALUE);
+    lock.readLock().lock();
+    try {
+      List<UCSBDate> dates = new ArrayList<>(Math.min(n, upcoming.size()));
+      for (UCSBDate date : upcoming.tailMap(now, true).values()) {
+        if (dates.size() >= n) {
+          break;
+        }
+        dates.add(date);
+      }
+      return dates;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return upcoming.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void putLocked(UCSBDate row) {
+    Key old = keys.remove(row.getId());
+    if (old != null) {
+      upcoming.remove(old);
+    }
+    if (row.getLocalDateTime() == null) {
+      return;
+    }
+    Key key = new Key(row.getLocalDateTime(), row.getId());
+    upcoming.put(key, row);
+    keys.put(row.getId(), key);
+  }
+
+  private void prunePassedLocked() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    while (!upcoming.isEmpty() && upcoming.firstKey().time().isBefore(now)) {
+      keys.remove(upcoming.pollFirstEntry().getKey().id());
+    }
+  }
+}
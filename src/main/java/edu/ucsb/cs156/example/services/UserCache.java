@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Caches resolved User rows by email so that /api/currentUser does not
+// hit the database on every page load.  Entries expire after a TTL and
+// the cache is bounded in size; callers must invalidate an entry whenever
+// the corresponding users row is written.
+
+@Slf4j
+@Component
+public class UserCache {
+
+  @Value("${app.userCache.maxSize:10000}")
+  int maxSize = 10000;
+
+  @Value("${app.userCache.ttlSeconds:300}")
+  long ttlSeconds = 300;
+
+  LongSupplier clock = System::nanoTime;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private record Entry(User user, long expiresAt) {
+  }
+
+  public Optional<User> get(String email) {
+    if (email == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    Entry entry = entries.get(email);
+    if (entry == null) {
+      misses.increment();
+      return Optional.empty();
+    }
+    if (clock.getAsLong() - entry.expiresAt() >= 0) {
+      entries.remove(email, entry);
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(entry.user());
+  }
+
+  public void put(String email, User user) {
+    if (email == null || user == null || maxSize <= 0) {
+      return;
+    }
+    long now = clock.getAsLong();
+    if (!entries.containsKey(email) && entries.size() >= maxSize) {
+      evict(now);
+    }
+    entries.put(email, new Entry(user, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+  }
+
+  public void invalidate(String email) {
+    if (email != null) {
+      entries.remove(email);
+    }
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public Map<String, Long> getStats() {
+    return Map.of(
+        "size", (long) size(),
+        "hits", getHits(),
+        "misses", getMisses(),
+        "evictions", getEvictions());
+  }
+
+  // Drop expired entries first; if the cache is still full, drop the entry
+  // that would expire soonest.  This only runs when an insert overflows.
+  private void evict(long now) {
+    entries.entrySet().removeIf(e -> {
+      boolean expired = now - e.getValue().expiresAt() >= 0;
+      if (expired) {
+        evictions.increment();
+      }
+      return expired;
+    });
+    while (entries.size() >= maxSize) {
+      String oldest = null;
+      long oldestExpiry = Long.MAX_VALUE;
+      for (Map.Entry<String, Entry> e : entries.entrySet()) {
+        if (oldest == null || e.getValue().expiresAt() - oldestExpiry < 0) {
+          oldest = e.getKey();
+          oldestExpiry = e.getValue().expiresAt();
+        }
+      }
+      if (oldest == null) {
+        return;
+      }
+      entries.remove(oldest);
+      evictions.increment();
+    }
+    log.debug("userCache evicted down to {} entries", entries.size());
+  }
+}
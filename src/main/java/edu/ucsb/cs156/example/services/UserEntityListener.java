@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+// JPA entity listener for the users table.  Any write to a User row
+// (including a change to the admin flag) drops it from the UserCache and
+// updates the admin index kept by AdminRoleService.  AdminRoleService is
+// injected lazily because Hibernate instantiates this listener while the
+// EntityManagerFactory that UserRepository needs is still being built.
+
+@Component
+public class UserEntityListener {
+
+  @Autowired
+  UserCache userCache;
+
+  @Lazy
+  @Autowired
+  AdminRoleService adminRoleService;
+
+  @PostPersist
+  @PostUpdate
+  public void written(User user) {
+    userCache.invalidate(user.getEmail());
+    adminRoleService.userWritten(user);
+  }
+
+  @PostRemove
+  public void removed(User user) {
+    userCache.invalidate(user.getEmail());
+    adminRoleService.userRemoved(user);
+  }
+}
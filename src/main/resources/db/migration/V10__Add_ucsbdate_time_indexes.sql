@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS ucsbdates_local_date_time_idx ON ucsbdates (local_date_time, id);
+CREATE INDEX IF NOT EXISTS ucsbdates_quarter_local_date_time_idx ON ucsbdates (quarteryyyyq, local_date_time, id);
+DROP INDEX IF EXISTS ucsbdates_quarteryyyyq_idx;
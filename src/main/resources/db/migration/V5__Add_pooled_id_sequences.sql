@@ -0,0 +1,16 @@
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('books_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM books));
+CREATE SEQUENCE IF NOT EXISTS energydrink_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('energydrink_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM energydrink));
+CREATE SEQUENCE IF NOT EXISTS movie_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('movie_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM movie));
+CREATE SEQUENCE IF NOT EXISTS restaurant_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('restaurant_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM restaurant));
+CREATE SEQUENCE IF NOT EXISTS student_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('student_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM student));
+CREATE SEQUENCE IF NOT EXISTS ucsbdates_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('ucsbdates_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM ucsbdates));
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM users));
+CREATE SEQUENCE IF NOT EXISTS vehicle_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('vehicle_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM vehicle));
@@ -0,0 +1,16 @@
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE energydrink ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE energydrink ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE restaurant ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE restaurant ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE student ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE student ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE ucsbdates ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE ucsbdates ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE ucsbdiningcommons ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE ucsbdiningcommons ADD COLUMN IF NOT EXISTS last_modified timestamp;
+ALTER TABLE vehicle ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE vehicle ADD COLUMN IF NOT EXISTS last_modified timestamp;
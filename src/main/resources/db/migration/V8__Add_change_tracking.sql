@@ -0,0 +1,10 @@
+CREATE INDEX IF NOT EXISTS student_last_modified_idx ON student (last_modified);
+CREATE INDEX IF NOT EXISTS vehicle_last_modified_idx ON vehicle (last_modified);
+CREATE SEQUENCE IF NOT EXISTS tombstones_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS tombstones (
+  id bigint PRIMARY KEY,
+  entity_name varchar(255),
+  row_id varchar(255),
+  deleted_at timestamp
+);
+CREATE INDEX IF NOT EXISTS tombstones_entity_name_deleted_at_idx ON tombstones (entity_name, deleted_at);
@@ -0,0 +1,4 @@
+ALTER TABLE books ADD COLUMN IF NOT EXISTS published_on date;
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS released_on date;
+CREATE INDEX IF NOT EXISTS books_published_on_idx ON books (published_on, id);
+CREATE INDEX IF NOT EXISTS movie_released_on_idx ON movie (released_on, id);
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+
+class ChangeTrackingAspectTests {
+
+  ChangeTokens changeTokens;
+  BookRepository bookRepository;
+
+  @BeforeEach
+  void setup() {
+    changeTokens = mock(ChangeTokens.class);
+    ChangeTrackingAspect aspect = new ChangeTrackingAspect();
+    aspect.changeTokens = changeTokens;
+    AspectJProxyFactory factory = new AspectJProxyFactory(mock(BookRepository.class));
+    factory.addAspect(aspect);
+    bookRepository = factory.getProxy();
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void test_writes_are_recorded_and_reads_are_not() {
+    bookRepository.findAll();
+    bookRepository.findById(1L);
+    verify(changeTokens, never()).recordWrite(any());
+
+    bookRepository.save(Book.builder().title("t").build());
+    bookRepository.updateRowById(1L, Book.builder().build(), Instant.now());
+    bookRepository.deleteRowById(1L);
+
+    verify(changeTokens, times(3)).recordWrite(Book.class);
+  }
+
+  @Test
+  void test_write_inside_a_transaction_is_recorded_after_commit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    bookRepository.deleteRowById(1L);
+    verify(changeTokens, never()).recordWrite(any());
+
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    verify(changeTokens, times(1)).recordWrite(Book.class);
+  }
+
+  @Test
+  void test_entity_type_is_read_from_repository_interface() {
+    assertEquals(Book.class, ChangeTrackingAspect.entityType(mock(BookRepository.class).getClass()));
+    assertEquals(UCSBDiningCommons.class,
+        ChangeTrackingAspect.entityType(mock(UCSBDiningCommonsRepository.class).getClass()));
+    assertThrows(IllegalStateException.class, () -> ChangeTrackingAspect.entityType(String.class));
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.filter.TypeExcludeFilters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import edu.ucsb.cs156.example.loadtest.LoadTestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Boots the whole application, since the actuator endpoints, their
+ * security rule and the springfox workaround only meet there.  The API
+ * docs are served at springfox.documentation.swagger.v2.path.
+ */
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:actuator;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.devtools.restart.enabled=false"
+})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@TypeExcludeFilters(LoadTestConfig.ExcludeTestComponents.class)
+class ActuatorTests {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Test
+  void test_prometheus_is_forbidden_when_logged_out() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  void test_prometheus_is_forbidden_for_users() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void test_prometheus_is_served_to_admins() throws Exception {
+    String body = mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    assertTrue(body.contains("jvm_memory_used_bytes"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  void test_requests_are_tagged_with_application_controller_and_handler() throws Exception {
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+    mockMvc.perform(get("/no-such-file.js"));
+
+    Timer handled = meterRegistry.find("http.server.requests")
+        .tags("application", "example", "controller", "SystemInfoController", "handler", "getSystemInfo")
+        .timer();
+    assertNotNull(handled);
+    assertEquals(1, handled.count());
+    Timer unhandled = meterRegistry.find("http.server.requests")
+        .tags("controller", "none", "handler", "none")
+        .timer();
+    assertNotNull(unhandled);
+  }
+
+  @Test
+  void test_api_docs_load_with_actuator_present() throws Exception {
+    String body = mockMvc.perform(get("/api/docs"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    assertTrue(body.contains("\"/api/book/all\""));
+    assertFalse(body.contains("\"/actuator"));
+  }
+}
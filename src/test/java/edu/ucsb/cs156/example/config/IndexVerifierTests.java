@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The schema here is created from the entities, so every declared index
+ * exists until a test drops one; a dropped index is put back before the
+ * test ends, since the in-memory database outlives the test.
+ */
+
+@DataJpaTest
+class IndexVerifierTests {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  IndexVerifier indexVerifier;
+
+  @BeforeEach
+  void setup() {
+    indexVerifier = new IndexVerifier();
+    indexVerifier.entityManagerFactory = entityManagerFactory;
+    indexVerifier.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Test
+  void test_nothing_is_missing_when_all_declared_indexes_exist() {
+    assertEquals(List.of(), indexVerifier.missingIndexes());
+    indexVerifier.verifyIndexes();
+  }
+
+  @Test
+  void test_a_dropped_index_is_reported_with_its_create_statement() {
+    jdbcTemplate.execute("DROP INDEX books_title_idx");
+    try {
+      assertEquals(List.of("CREATE INDEX books_title_idx ON books (title);"), indexVerifier.missingIndexes());
+      indexVerifier.verifyIndexes();
+    } finally {
+      jdbcTemplate.execute("CREATE INDEX books_title_idx ON books (title)");
+    }
+    assertEquals(List.of(), indexVerifier.missingIndexes());
+  }
+
+  @Test
+  void test_an_index_covers_a_leading_prefix_of_its_columns_only() {
+    assertTrue(IndexVerifier.startsWith(List.of("released_on", "id"), List.of("released_on")));
+    assertTrue(IndexVerifier.startsWith(List.of("released_on", "id"), List.of("released_on", "id")));
+    assertFalse(IndexVerifier.startsWith(List.of("released_on", "id"), List.of("id")));
+    assertFalse(IndexVerifier.startsWith(List.of("released_on"), List.of("released_on", "id")));
+  }
+}
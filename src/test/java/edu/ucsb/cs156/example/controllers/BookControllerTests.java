@@ -5,17 +5,27 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Book;
 import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.SearchService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -23,17 +33,25 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 
 import java.time.LocalDateTime;
 
+import java.time.LocalDate;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = BookController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, EntityExportService.class, ChangeTokens.class})
 public class BookControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +60,15 @@ public class BookControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        AutocompleteService autocompleteService;
+
+        @MockBean
+        SearchService searchService;
+
+        @Autowired
+        ChangeTokens changeTokens;
+
     
 
         @Test
@@ -165,6 +192,38 @@ public class BookControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_current_etag_is_not_modified() throws Exception {
+                when(bookRepository.findAll()).thenReturn(new ArrayList<>());
+
+                MvcResult first = mockMvc.perform(get("/api/book/all"))
+                                .andExpect(status().isOk()).andReturn();
+                String etag = first.getResponse().getHeader("ETag");
+                assertNotNull(etag);
+                assertNull(first.getResponse().getHeader("Last-Modified"));
+
+                MvcResult second = mockMvc.perform(get("/api/book/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified()).andReturn();
+
+                verify(bookRepository, times(1)).findAll();
+                assertEquals("", second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_after_a_write_is_sent_again() throws Exception {
+                when(bookRepository.findAll()).thenReturn(new ArrayList<>());
+                String etag = changeTokens.etag(Book.class);
+                changeTokens.recordWrite(Book.class);
+
+                MvcResult response = mockMvc.perform(get("/api/book/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(bookRepository, times(1)).findAll();
+                assertEquals(changeTokens.etag(Book.class), response.getResponse().getHeader("ETag"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_book() throws Exception {
@@ -188,6 +247,8 @@ public class BookControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(bookRepository, times(1)).save(book1);
+                verify(autocompleteService, times(1)).index(book1);
+                verify(searchService, times(1)).index(book1);
                 String expectedJson = mapper.writeValueAsString(book1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -200,13 +261,7 @@ public class BookControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                Book book1 = Book.builder()
-                                .title("firstDayOfClasses")
-                                .author("20222")
-                                .date("2023")
-                                .build();
-
-                when(bookRepository.findById(eq(15L))).thenReturn(Optional.of(book1));
+                when(bookRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -215,8 +270,9 @@ public class BookControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(bookRepository, times(1)).findById(15L);
-                verify(bookRepository, times(1)).delete(any());
+                verify(bookRepository, times(1)).deleteRowById(15L);
+                verify(autocompleteService, times(1)).remove(Book.class, 15L);
+                verify(searchService, times(1)).removeBook(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Book with id 15 deleted", json.get("message"));
@@ -228,7 +284,7 @@ public class BookControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(bookRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(bookRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -237,7 +293,8 @@ public class BookControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(bookRepository, times(1)).findById(15L);
+                verify(bookRepository, times(1)).deleteRowById(15L);
+                verify(searchService, never()).removeBook(anyLong());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Book with id 15 not found", json.get("message"));
         }
@@ -247,12 +304,6 @@ public class BookControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_book() throws Exception {
                 // arrange
 
-                Book bookOrig = Book.builder()
-                                .title("firstDayOfClasses")
-                                .author("20222")
-                                .date("2023")
-                                .build();
-
                 Book bookEdited = Book.builder()
                                 .title("firstDayOfFestivus")
                                 .author("20232")
@@ -261,7 +312,7 @@ public class BookControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(bookEdited);
 
-                when(bookRepository.findById(eq(67L))).thenReturn(Optional.of(bookOrig));
+                when(bookRepository.updateRowById(eq(67L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -273,10 +324,18 @@ public class BookControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(bookRepository, times(1)).findById(67L);
-                verify(bookRepository, times(1)).save(bookEdited); // should be saved with correct user
+                bookEdited.setId(67L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(bookRepository, times(1)).updateRowById(eq(67L), any(), stamp.capture());
+                bookEdited.setVersion(stamp.getValue().toEpochMilli());
+                bookEdited.setLastModified(stamp.getValue());
+                verify(bookRepository, times(1)).updateRowById(eq(67L), eq(bookEdited), any());
+                // the update is the only statement; the row is not read back
+                verify(bookRepository, never()).findById(any());
+                verify(autocompleteService, times(1)).index(bookEdited);
+                verify(searchService, times(1)).index(bookEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(bookEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -294,7 +353,7 @@ public class BookControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(bookRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(bookRepository.updateRowById(eq(67L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -306,9 +365,295 @@ public class BookControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(bookRepository, times(1)).findById(67L);
+                verify(bookRepository, times(1)).updateRowById(eq(67L), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Book with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/book/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                Book row1 = Book.builder().id(1L).title("title1").author("author1").date("2021").build();
+                Book row2 = Book.builder().id(2L).title("title2").author("author2").date("2022").build();
+                Book row3 = Book.builder().id(3L).title("title3").author("author3").date("2023").build();
+
+                when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/book/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(bookRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<Book> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, BookController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                Book row3 = Book.builder().id(3L).title("title3").author("author3").date("2023").build();
+
+                when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/book/page?cursor=" + BookController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(bookRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<Book> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/book/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/book/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /export.ndjson
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/book/export.ndjson"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_export_as_ndjson() throws Exception {
+
+                // arrange
+
+                Book row1 = Book.builder().id(1L).title("title1").author("author1").date("2021").build();
+                Book row2 = Book.builder().id(2L).title("title2").author("author2").date("2022").build();
+
+                when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row1, row2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/book/export.ndjson"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                        .andReturn();
+
+                // assert
+
+                verify(bookRepository, times(1)).streamAllByOrderByIdAsc();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_export_empty_table() throws Exception {
+                when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+
+                MvcResult response = mockMvc.perform(get("/api/book/export.ndjson"))
+                        .andExpect(status().isOk()).andReturn();
+
+                assertEquals("", response.getResponse().getContentAsString());
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/book/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/book/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                Book good = Book.builder().id(7L).title("title1").author("author1").date("2021").build();
+                Book bad = Book.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(bookRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/book/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(bookRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                verify(searchService, times(1)).index(good);
+                BulkResult<Book> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("title is required", "author is required", "date is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/book/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for search
+
+        @Test
+        public void logged_out_users_cannot_search() throws Exception {
+                mockMvc.perform(get("/api/book/search?q=potter"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_search_results_in_ranked_order() throws Exception {
+                Book best = Book.builder().id(3L).title("Harry Potter").author("Rowling").date("1997").build();
+                Book next = Book.builder().id(1L).title("Potted History").author("Smith").date("2001").build();
+                when(searchService.searchBooks(eq("pott"), eq(10))).thenReturn(List.of(best, next));
+
+                MvcResult response = mockMvc.perform(get("/api/book/search?q=pott&size=10"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of(best, next)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void search_uses_default_size_and_rejects_sizes_out_of_range() throws Exception {
+                when(searchService.searchBooks(any(), eq(50))).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/book/search?q=potter"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/book/search?q=potter&size=501"))
+                                .andExpect(status().isBadRequest());
+
+                verify(searchService, times(1)).searchBooks("potter", 50);
+        }
+
+        // Tests for suggest
+
+        @Test
+        public void logged_out_users_cannot_get_suggestions() throws Exception {
+                mockMvc.perform(get("/api/book/suggest?field=author&prefix=ro"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_suggestions_for_a_field() throws Exception {
+                when(autocompleteService.suggest(eq(Book.class), eq("author"), eq("ro"), eq(null))).thenReturn(List.of("Rowling", "Rothfuss"));
+
+                MvcResult response = mockMvc.perform(get("/api/book/suggest?field=author&prefix=ro"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of("Rowling", "Rothfuss")), response.getResponse().getContentAsString());
+        }
+
+        // Tests for date ranges
+
+        @Test
+        public void logged_out_users_cannot_get_range() throws Exception {
+                mockMvc.perform(get("/api/book/range?from=2021-01-01"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_of_a_date_range() throws Exception {
+
+                // arrange
+
+                Book row1 = Book.builder().id(4L).title("title1").author("author1").date("2021").publishedOn(LocalDate.of(2021, 1, 1)).build();
+                Book row2 = Book.builder().id(2L).title("title2").author("author2").date("2021-06-30").publishedOn(LocalDate.of(2021, 6, 30)).build();
+                Book row3 = Book.builder().id(9L).title("title3").author("author3").date("2022").publishedOn(LocalDate.of(2022, 1, 1)).build();
+
+                when(bookRepository.findPublishedBetween(eq(LocalDate.of(2021, 1, 1)), eq(-1L), eq(LocalDate.of(2022, 12, 31)), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/book/range?from=2021-01-01&to=2022-12-31&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<Book> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, BookController.encodeCursor("2021-06-30,2"));
+                assertEquals(mapper.writeValueAsString(expectedPage), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void date_range_continues_from_cursor_and_defaults_open_bounds() throws Exception {
+                when(bookRepository.findPublishedBetween(any(), anyLong(), any(), any())).thenReturn(new ArrayList<>());
+
+                mockMvc.perform(get("/api/book/range?cursor=" + BookController.encodeCursor("2021-06-30,2")))
+                                .andExpect(status().isOk());
+
+                verify(bookRepository, times(1)).findPublishedBetween(LocalDate.of(2021, 6, 30), 2L, LocalDate.of(9999, 12, 31), PageRequest.of(0, 51));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void date_range_rejects_reversed_bounds_and_bad_cursors() throws Exception {
+                MvcResult reversed = mockMvc.perform(get("/api/book/range?from=2022-01-01&to=2021-01-01"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("from must not be after to", responseToJson(reversed).get("message"));
+
+                String cursor = BookController.encodeCursor("2021-06-30");
+                MvcResult badCursor = mockMvc.perform(get("/api/book/range?cursor=" + cursor))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("invalid cursor " + cursor, responseToJson(badCursor).get("message"));
+        }
 }
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CacheStatisticsService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Map;
+
+@WebMvcTest(controllers = CacheController.class)
+@Import(TestConfig.class)
+public class CacheControllerTests extends ControllerTestCase {
+
+  @MockBean
+  CacheStatisticsService cacheStatisticsService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void stats__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/cache/stats"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void stats__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/cache/stats"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void stats__admin_logged_in() throws Exception {
+
+    // arrange
+
+    Map<String, Map<String, Long>> stats = Map.of(
+        "books", Map.of("hits", 3L, "misses", 1L, "puts", 1L, "size", 1L));
+    when(cacheStatisticsService.getStats()).thenReturn(stats);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/cache/stats"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(cacheStatisticsService, times(1)).getStats();
+    assertEquals(mapper.readTree(mapper.writeValueAsString(stats)),
+        mapper.readTree(response.getResponse().getContentAsString()));
+  }
+}
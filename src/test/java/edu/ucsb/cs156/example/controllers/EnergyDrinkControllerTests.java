@@ -5,6 +5,10 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.EnergyDrink;
 import edu.ucsb.cs156.example.repositories.EnergyDrinkRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.ChangeTokens;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +20,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +30,8 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,9 +39,10 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = EnergyDrinkController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, ChangeTokens.class})
 public class EnergyDrinkControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -200,13 +209,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                EnergyDrink energydrink1 = EnergyDrink.builder()
-                                .name("Red Bull")
-                                .flavor("Peach")
-                                .calories("150")
-                                .build();
-
-                when(energydrinkRepository.findById(eq(15L))).thenReturn(Optional.of(energydrink1));
+                when(energydrinkRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -215,8 +218,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(energydrinkRepository, times(1)).findById(15L);
-                verify(energydrinkRepository, times(1)).delete(any());
+                verify(energydrinkRepository, times(1)).deleteRowById(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("EnergyDrink with id 15 deleted", json.get("message"));
@@ -228,7 +230,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(energydrinkRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(energydrinkRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -237,7 +239,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(energydrinkRepository, times(1)).findById(15L);
+                verify(energydrinkRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("EnergyDrink with id 15 not found", json.get("message"));
         }
@@ -247,12 +249,6 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_energydrink() throws Exception {
                 // arrange
 
-                EnergyDrink energydrinkOrig = EnergyDrink.builder()
-                                .name("Red Bull")
-                                .flavor("Peach")
-                                .calories("150")
-                                .build();
-
                 EnergyDrink energydrinkEdited = EnergyDrink.builder()
                                 .name("Monster")
                                 .flavor("Mango")
@@ -261,7 +257,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(energydrinkEdited);
 
-                when(energydrinkRepository.findById(eq(67L))).thenReturn(Optional.of(energydrinkOrig));
+                when(energydrinkRepository.updateRowById(eq(67L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -273,10 +269,16 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(energydrinkRepository, times(1)).findById(67L);
-                verify(energydrinkRepository, times(1)).save(energydrinkEdited); // should be saved with correct user
+                energydrinkEdited.setId(67L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(energydrinkRepository, times(1)).updateRowById(eq(67L), any(), stamp.capture());
+                energydrinkEdited.setVersion(stamp.getValue().toEpochMilli());
+                energydrinkEdited.setLastModified(stamp.getValue());
+                verify(energydrinkRepository, times(1)).updateRowById(eq(67L), eq(energydrinkEdited), any());
+                // the update is the only statement; the row is not read back
+                verify(energydrinkRepository, never()).findById(any());
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(energydrinkEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -294,7 +296,7 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(energydrinkRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(energydrinkRepository.updateRowById(eq(67L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -306,9 +308,143 @@ public class EnergyDrinkControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(energydrinkRepository, times(1)).findById(67L);
+                verify(energydrinkRepository, times(1)).updateRowById(eq(67L), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("EnergyDrink with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/energydrink/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                EnergyDrink row1 = EnergyDrink.builder().id(1L).name("drink1").flavor("flavor1").calories("10").build();
+                EnergyDrink row2 = EnergyDrink.builder().id(2L).name("drink2").flavor("flavor2").calories("20").build();
+                EnergyDrink row3 = EnergyDrink.builder().id(3L).name("drink3").flavor("flavor3").calories("30").build();
+
+                when(energydrinkRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/energydrink/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(energydrinkRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<EnergyDrink> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, EnergyDrinkController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                EnergyDrink row3 = EnergyDrink.builder().id(3L).name("drink3").flavor("flavor3").calories("30").build();
+
+                when(energydrinkRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/energydrink/page?cursor=" + EnergyDrinkController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(energydrinkRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<EnergyDrink> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/energydrink/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/energydrink/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/energydrink/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/energydrink/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                EnergyDrink good = EnergyDrink.builder().id(7L).name("drink1").flavor("flavor1").calories("10").build();
+                EnergyDrink bad = EnergyDrink.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(energydrinkRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/energydrink/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(energydrinkRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                BulkResult<EnergyDrink> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("name is required", "flavor is required", "calories is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/energydrink/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
 }
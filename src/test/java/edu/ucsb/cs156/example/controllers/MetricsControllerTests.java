@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.RequestTimings;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Map;
+
+@WebMvcTest(controllers = MetricsController.class)
+@Import({TestConfig.class, RequestTimings.class})
+public class MetricsControllerTests extends ControllerTestCase {
+
+  @Autowired
+  RequestTimings requestTimings;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void requests__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/requests"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void requests__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/requests"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void requests__admin_logged_in() throws Exception {
+
+    // arrange
+
+    requestTimings.reset();
+    requestTimings.record("GET /api/books/all", 2_000_000);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/requests"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    String expectedJson = mapper.writeValueAsString(requestTimings.getTimings());
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+    assertEquals(1, requestTimings.getTimings().size());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void reset__admin_logged_in() throws Exception {
+
+    // arrange
+
+    requestTimings.record("GET /api/books/all", 2_000_000);
+
+    // act
+
+    MvcResult response = mockMvc.perform(delete("/api/admin/metrics/requests").with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertTrue(requestTimings.getTimings().isEmpty());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("request timings cleared", json.get("message"));
+  }
+}
@@ -6,6 +6,11 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Movie;
 import edu.ucsb.cs156.example.repositories.MovieRepository;
 import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.SearchService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,22 +22,29 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.LocalDate;
 import java.util.Optional;
+import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MoviesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, ChangeTokens.class})
 public class MoviesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -41,6 +53,9 @@ public class MoviesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        SearchService searchService;
+
         
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
@@ -172,7 +187,6 @@ public class MoviesControllerTests extends ControllerTestCase {
                         .build();
 
 
-
                 when(movieRepository.save(eq(movie))).thenReturn(movie);
 
                 // act
@@ -182,6 +196,7 @@ public class MoviesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(movieRepository, times(1)).save(movie);
+                verify(searchService, times(1)).index(movie);
                 String expectedJson = mapper.writeValueAsString(movie);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -197,9 +212,8 @@ public class MoviesControllerTests extends ControllerTestCase {
                         .releaseDate("2009-12-18")
                         .build();
 
-      
 
-                when(movieRepository.findById(eq(1L))).thenReturn(Optional.of(movie));
+                when(movieRepository.deleteRowById(eq(1L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -208,8 +222,8 @@ public class MoviesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(movieRepository, times(1)).findById(1L);
-                verify(movieRepository, times(1)).delete(any());
+                verify(movieRepository, times(1)).deleteRowById(1L);
+                verify(searchService, times(1)).removeMovie(1L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Movie with id 1 deleted", json.get("message"));
@@ -221,7 +235,7 @@ public class MoviesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(movieRepository.findById(eq(1L))).thenReturn(Optional.empty());
+                when(movieRepository.deleteRowById(eq(1L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -230,7 +244,8 @@ public class MoviesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(movieRepository, times(1)).findById(1L);
+                verify(movieRepository, times(1)).deleteRowById(1L);
+                verify(searchService, never()).removeMovie(anyLong());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Movie with id 1 not found", json.get("message"));
         }
@@ -239,12 +254,6 @@ public class MoviesControllerTests extends ControllerTestCase {
         @Test
         public void admin_can_edit_an_existing_movie() throws Exception {
                 // arrange
-
-                Movie movieOrig = Movie.builder()
-                        .directorName("Christopher Nolan")
-                        .movieName("Inception")
-                        .releaseDate("2011-07-13")
-                        .build();
         
                 Movie movieEdit = Movie.builder()
                         .directorName("James Cameron")
@@ -255,7 +264,7 @@ public class MoviesControllerTests extends ControllerTestCase {
                
 
                 String requestBody = mapper.writeValueAsString(movieEdit);
-                when(movieRepository.findById(eq(1L))).thenReturn(Optional.of(movieOrig));
+                when(movieRepository.updateRowById(eq(1L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(put("/api/movie?id=1")
@@ -266,10 +275,17 @@ public class MoviesControllerTests extends ControllerTestCase {
                                         .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(movieRepository, times(1)).findById(1L);
-                verify(movieRepository, times(1)).save(movieEdit); // should be saved with updated info
+                movieEdit.setId(1L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(movieRepository, times(1)).updateRowById(eq(1L), any(), stamp.capture());
+                movieEdit.setVersion(stamp.getValue().toEpochMilli());
+                movieEdit.setLastModified(stamp.getValue());
+                verify(movieRepository, times(1)).updateRowById(eq(1L), eq(movieEdit), any());
+                // the update is the only statement; the row is not read back
+                verify(movieRepository, never()).findById(any());
+                verify(searchService, times(1)).index(movieEdit);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(movieEdit), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -286,7 +302,7 @@ public class MoviesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(movieEdit);
 
-                when(movieRepository.findById(eq(1L))).thenReturn(Optional.empty());
+                when(movieRepository.updateRowById(eq(1L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -298,9 +314,233 @@ public class MoviesControllerTests extends ControllerTestCase {
                                         .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(movieRepository, times(1)).findById(1L);
+                verify(movieRepository, times(1)).updateRowById(eq(1L), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Movie with id 1 not found", json.get("message"));
 
         }
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/movie/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                Movie row1 = Movie.builder().id(1L).movieName("movie1").directorName("director1").releaseDate("2022-01-01").build();
+                Movie row2 = Movie.builder().id(2L).movieName("movie2").directorName("director2").releaseDate("2022-01-02").build();
+                Movie row3 = Movie.builder().id(3L).movieName("movie3").directorName("director3").releaseDate("2022-01-03").build();
+
+                when(movieRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/movie/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(movieRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<Movie> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, MoviesController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                Movie row3 = Movie.builder().id(3L).movieName("movie3").directorName("director3").releaseDate("2022-01-03").build();
+
+                when(movieRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/movie/page?cursor=" + MoviesController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(movieRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<Movie> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/movie/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/movie/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/movie/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/movie/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                Movie good = Movie.builder().id(7L).movieName("movie1").directorName("director1").releaseDate("2022-01-01").build();
+                Movie bad = Movie.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(movieRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/movie/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(movieRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                verify(searchService, times(1)).index(good);
+                BulkResult<Movie> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("movieName is required", "directorName is required", "releaseDate is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/movie/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for search
+
+        @Test
+        public void logged_out_users_cannot_search() throws Exception {
+                mockMvc.perform(get("/api/movie/search?q=potter"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_search_results_in_ranked_order() throws Exception {
+                Movie best = Movie.builder().id(3L).movieName("Harry Potter").directorName("Columbus").releaseDate("2001-11-16").build();
+                Movie next = Movie.builder().id(1L).movieName("Potted History").directorName("Smith").releaseDate("2005-01-01").build();
+                when(searchService.searchMovies(eq("pott"), eq(10))).thenReturn(List.of(best, next));
+
+                MvcResult response = mockMvc.perform(get("/api/movie/search?q=pott&size=10"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of(best, next)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void search_uses_default_size_and_rejects_sizes_out_of_range() throws Exception {
+                when(searchService.searchMovies(any(), eq(50))).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/movie/search?q=potter"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(get("/api/movie/search?q=potter&size=501"))
+                                .andExpect(status().isBadRequest());
+
+                verify(searchService, times(1)).searchMovies("potter", 50);
+        }
+
+        // Tests for date ranges
+
+        @Test
+        public void logged_out_users_cannot_get_range() throws Exception {
+                mockMvc.perform(get("/api/movie/range?from=2021-01-01"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_of_a_date_range() throws Exception {
+
+                // arrange
+
+                Movie row1 = Movie.builder().id(4L).movieName("movie1").directorName("director1").releaseDate("2021").releasedOn(LocalDate.of(2021, 1, 1)).build();
+                Movie row2 = Movie.builder().id(2L).movieName("movie2").directorName("director2").releaseDate("2021-06-30").releasedOn(LocalDate.of(2021, 6, 30)).build();
+                Movie row3 = Movie.builder().id(9L).movieName("movie3").directorName("director3").releaseDate("2022").releasedOn(LocalDate.of(2022, 1, 1)).build();
+
+                when(movieRepository.findReleasedBetween(eq(LocalDate.of(2021, 1, 1)), eq(-1L), eq(LocalDate.of(2022, 12, 31)), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/movie/range?from=2021-01-01&to=2022-12-31&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<Movie> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, MoviesController.encodeCursor("2021-06-30,2"));
+                assertEquals(mapper.writeValueAsString(expectedPage), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void date_range_continues_from_cursor_and_defaults_open_bounds() throws Exception {
+                when(movieRepository.findReleasedBetween(any(), anyLong(), any(), any())).thenReturn(new ArrayList<>());
+
+                mockMvc.perform(get("/api/movie/range?cursor=" + MoviesController.encodeCursor("2021-06-30,2")))
+                                .andExpect(status().isOk());
+
+                verify(movieRepository, times(1)).findReleasedBetween(LocalDate.of(2021, 6, 30), 2L, LocalDate.of(9999, 12, 31), PageRequest.of(0, 51));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void date_range_rejects_reversed_bounds_and_bad_cursors() throws Exception {
+                MvcResult reversed = mockMvc.perform(get("/api/movie/range?from=2022-01-01&to=2021-01-01"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("from must not be after to", responseToJson(reversed).get("message"));
+
+                String cursor = MoviesController.encodeCursor("2021-06-30");
+                MvcResult badCursor = mockMvc.perform(get("/api/movie/range?cursor=" + cursor))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("invalid cursor " + cursor, responseToJson(badCursor).get("message"));
+        }
 }
@@ -5,6 +5,11 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,12 +21,16 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.Optional;
+import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,9 +38,10 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = RestaurantController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, ChangeTokens.class})
 public class RestaurantControllerTests extends ControllerTestCase {
         @MockBean
         RestaurantRepository restaurantRepository;
@@ -39,6 +49,9 @@ public class RestaurantControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        AutocompleteService autocompleteService;
+
         // Authorization tests for /api/restaurants/admin/all
 
         @Test
@@ -204,6 +217,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(restaurantRepository, times(1)).save(restaurant1);
+                verify(autocompleteService, times(1)).index(restaurant1);
                 String expectedJson = mapper.writeValueAsString(restaurant1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -213,13 +227,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
         @Test
         public void admin_can_delete_a_restaurant() throws Exception {
 
-                Restaurant restaurant1 = Restaurant.builder()
-                                .name("Zocalo")
-                                .location("901 Embarcadero del Mar")
-                                .hasTakeOut(true)
-                                .build();
-
-                when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.of(restaurant1));
+                when(restaurantRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -228,8 +236,8 @@ public class RestaurantControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(15L);
-                verify(restaurantRepository, times(1)).delete(any());
+                verify(restaurantRepository, times(1)).deleteRowById(15L);
+                verify(autocompleteService, times(1)).remove(Restaurant.class, 15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -241,7 +249,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(restaurantRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -250,7 +258,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(15L);
+                verify(restaurantRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 not found", json.get("message"));
         }
@@ -259,12 +267,6 @@ public class RestaurantControllerTests extends ControllerTestCase {
         @Test
         public void admin_can_edit_an_existing_restaurant() throws Exception {
 
-                Restaurant restaurantOrig = Restaurant.builder()
-                                .name("Zocalo")
-                                .location("901 Embarcadero del Mar")
-                                .hasTakeOut(true)
-                                .build();
-
                 Restaurant restaurantEdited = Restaurant.builder()
                                 .name("VONS Chicken")
                                 .location("955 Embarcadero del Mar")
@@ -273,7 +275,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(restaurantEdited);
 
-                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.updateRowById(eq(67L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -285,10 +287,17 @@ public class RestaurantControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(67L);
-                verify(restaurantRepository, times(1)).save(restaurantEdited); // should be saved with correct user
+                restaurantEdited.setId(67L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(restaurantRepository, times(1)).updateRowById(eq(67L), any(), stamp.capture());
+                restaurantEdited.setVersion(stamp.getValue().toEpochMilli());
+                restaurantEdited.setLastModified(stamp.getValue());
+                verify(restaurantRepository, times(1)).updateRowById(eq(67L), eq(restaurantEdited), any());
+                // the update is the only statement; the row is not read back
+                verify(restaurantRepository, never()).findById(any());
+                verify(autocompleteService, times(1)).index(restaurantEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(restaurantEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -303,7 +312,7 @@ public class RestaurantControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedRestaurant);
 
-                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(restaurantRepository.updateRowById(eq(67L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -315,9 +324,162 @@ public class RestaurantControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(67L);
+                verify(restaurantRepository, times(1)).updateRowById(eq(67L), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
         }
 
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/restaurants/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                Restaurant row1 = Restaurant.builder().id(1L).name("restaurant1").location("location1").hasTakeOut(true).build();
+                Restaurant row2 = Restaurant.builder().id(2L).name("restaurant2").location("location2").hasTakeOut(true).build();
+                Restaurant row3 = Restaurant.builder().id(3L).name("restaurant3").location("location3").hasTakeOut(true).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<Restaurant> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, RestaurantController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                Restaurant row3 = Restaurant.builder().id(3L).name("restaurant3").location("location3").hasTakeOut(true).build();
+
+                when(restaurantRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/page?cursor=" + RestaurantController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(restaurantRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<Restaurant> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/restaurants/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/restaurants/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                Restaurant good = Restaurant.builder().id(7L).name("restaurant1").location("location1").hasTakeOut(true).build();
+                Restaurant bad = Restaurant.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(restaurantRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(restaurantRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                BulkResult<Restaurant> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("name is required", "location is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for suggest
+
+        @Test
+        public void logged_out_users_cannot_get_suggestions() throws Exception {
+                mockMvc.perform(get("/api/restaurants/suggest?field=name&prefix=fr"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_suggestions_for_a_field() throws Exception {
+                when(autocompleteService.suggest(eq(Restaurant.class), eq("name"), eq("fr"), eq(null))).thenReturn(List.of("Freebirds", "Fresh Choice"));
+
+                MvcResult response = mockMvc.perform(get("/api/restaurants/suggest?field=name&prefix=fr"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of("Freebirds", "Fresh Choice")), response.getResponse().getContentAsString());
+        }
 }
@@ -5,11 +5,25 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.repositories.StudentRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.ChangeFeedService;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.entities.Tombstone;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -18,6 +32,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,11 +46,12 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 
 
 @WebMvcTest(controllers = StudentController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, EntityExportService.class, ChangeTokens.class, ChangeFeedService.class})
 public class StudentControllerTests extends ControllerTestCase  {
     @MockBean
     StudentRepository studentRepository;
@@ -42,6 +59,15 @@ public class StudentControllerTests extends ControllerTestCase  {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    AutocompleteService autocompleteService;
+
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
+    @MockBean
+    FieldProjectionService fieldProjectionService;
+
     // Authorization tests for /api/students/admin/all
 
     @Test
@@ -108,6 +134,21 @@ public class StudentControllerTests extends ControllerTestCase  {
         assertEquals(expectedJson, responseString);
     }
 
+    @WithMockUser(roles = {"USER"})
+    @Test
+    public void logged_in_users_can_get_selected_student_fields() throws Exception {
+        List<Map<String, Object>> rows = List.of(
+                Map.of("id", 1L, "lastName", "Harden"),
+                Map.of("id", 2L, "lastName", "Davis"));
+        when(fieldProjectionService.findAll(eq(Student.class), eq("id,lastName"))).thenReturn(rows);
+
+        MvcResult response = mockMvc.perform(get("/api/students/all?fields=id,lastName"))
+                        .andExpect(status().isOk()).andReturn();
+
+        verify(studentRepository, times(0)).findAll();
+        assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+    }
+
     @WithMockUser(roles = {"ADMIN", "USER"})
     @Test
     public void an_admin_user_can_post_a_new_student() throws Exception {
@@ -126,6 +167,7 @@ public class StudentControllerTests extends ControllerTestCase  {
 
         // act
         verify(studentRepository, times(1)).save(student1);
+        verify(autocompleteService, times(1)).index(student1);
         String expectedJson = mapper.writeValueAsString(student1);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
@@ -175,13 +217,6 @@ public class StudentControllerTests extends ControllerTestCase  {
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void admin_can_edit_an_existing_student() throws Exception {
-        Student studentOrig = Student.builder()
-            .firstName("James")
-            .lastName("Harden")
-            .perm("12345")
-            .email("jHarden@ucsb.edu")
-            .phoneNumber("673-38385")
-            .major("Finance").build();
 
         Student studentEdit = Student.builder()
                 .firstName("Anthony")
@@ -192,7 +227,7 @@ public class StudentControllerTests extends ControllerTestCase  {
                 .major("Math").build();
         
         String requestBody = mapper.writeValueAsString(studentEdit);
-        when(studentRepository.findById(eq(2L))).thenReturn(Optional.of(studentOrig));
+        when(studentRepository.updateRowById(eq(2L), any(), any())).thenReturn(1);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -204,10 +239,17 @@ public class StudentControllerTests extends ControllerTestCase  {
                     .andExpect(status().isOk()).andReturn();
         
         // assert
-        verify(studentRepository, times(1)).findById(2L);
-        verify(studentRepository, times(1)).save(studentEdit); // should be saved with correct user
+        studentEdit.setId(2L);
+        ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+        verify(studentRepository, times(1)).updateRowById(eq(2L), any(), stamp.capture());
+        studentEdit.setVersion(stamp.getValue().toEpochMilli());
+        studentEdit.setLastModified(stamp.getValue());
+        verify(studentRepository, times(1)).updateRowById(eq(2L), eq(studentEdit), any());
+        // the update is the only statement; the row is not read back
+        verify(studentRepository, never()).findById(any());
+        verify(autocompleteService, times(1)).index(studentEdit);
         String responseString = response.getResponse().getContentAsString();
-        assertEquals(requestBody, responseString);
+        assertEquals(mapper.writeValueAsString(studentEdit), responseString);
     }
 
 
@@ -224,7 +266,7 @@ public class StudentControllerTests extends ControllerTestCase  {
         
         String requestBody = mapper.writeValueAsString(studentEdit);
 
-        when(studentRepository.findById(eq(1L))).thenReturn(Optional.empty());
+        when(studentRepository.updateRowById(eq(1L), any(), any())).thenReturn(0);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -236,7 +278,7 @@ public class StudentControllerTests extends ControllerTestCase  {
                     .andExpect(status().isNotFound()).andReturn();
 
         // assert
-        verify(studentRepository, times(1)).findById(1L);
+        verify(studentRepository, times(1)).updateRowById(eq(1L), any(), any());
         Map<String, Object> json = responseToJson(response);
         assertEquals("Student with id 1 not found", json.get("message"));
     }
@@ -244,15 +286,7 @@ public class StudentControllerTests extends ControllerTestCase  {
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void admin_can_delete_a_student() throws Exception {
-        Student student = Student.builder()
-                .firstName("Anthony")
-                .lastName("Davis")
-                .perm("67891")
-                .email("aDavis@ucsb.edu")
-                .phoneNumber("673-38386")
-                .major("Math").build();
-        
-        when(studentRepository.findById(eq(15L))).thenReturn(Optional.of(student));
+        when(studentRepository.deleteRowById(eq(15L))).thenReturn(1);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -261,8 +295,8 @@ public class StudentControllerTests extends ControllerTestCase  {
         .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(studentRepository, times(1)).findById(15L);
-        verify(studentRepository, times(1)).delete(any());
+        verify(studentRepository, times(1)).deleteRowById(15L);
+        verify(autocompleteService, times(1)).remove(Student.class, 15L);
 
         Map<String, Object> json = responseToJson(response);
         assertEquals("Student with id 15 deleted", json.get("message"));
@@ -271,7 +305,7 @@ public class StudentControllerTests extends ControllerTestCase  {
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
     public void admin_tries_to_delete_non_existant_student_and_gets_right_error_message() throws Exception {
-        when(studentRepository.findById(eq(15L))).thenReturn(Optional.empty());
+        when(studentRepository.deleteRowById(eq(15L))).thenReturn(0);
          // act
         MvcResult response = mockMvc.perform(
         delete("/api/students?id=15")
@@ -279,7 +313,7 @@ public class StudentControllerTests extends ControllerTestCase  {
         .andExpect(status().isNotFound()).andReturn();
 
         // assert
-        verify(studentRepository, times(1)).findById(15L);
+        verify(studentRepository, times(1)).deleteRowById(15L);
         Map<String, Object> json = responseToJson(response);
         assertEquals("Student with id 15 not found", json.get("message"));
 
@@ -297,4 +331,238 @@ public class StudentControllerTests extends ControllerTestCase  {
 
 
 
+
+    // Tests for keyset paging
+
+    @Test
+    public void logged_out_users_cannot_get_page() throws Exception {
+        mockMvc.perform(get("/api/students/page"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+        // arrange
+
+        Student row1 = Student.builder().id(1L).firstName("first1").lastName("last1").perm("100000").email("student1@ucsb.edu").phoneNumber("805-555-0001").major("CS").build();
+        Student row2 = Student.builder().id(2L).firstName("first2").lastName("last2").perm("200000").email("student2@ucsb.edu").phoneNumber("805-555-0002").major("CS").build();
+        Student row3 = Student.builder().id(3L).firstName("first3").lastName("last3").perm("300000").email("student3@ucsb.edu").phoneNumber("805-555-0003").major("CS").build();
+
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/students/page?size=2"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(studentRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+        KeysetPage<Student> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, StudentController.encodeCursor(2L));
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+        // arrange
+
+        Student row3 = Student.builder().id(3L).firstName("first3").lastName("last3").perm("300000").email("student3@ucsb.edu").phoneNumber("805-555-0003").major("CS").build();
+
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/students/page?cursor=" + StudentController.encodeCursor(2L)))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        verify(studentRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+        KeysetPage<Student> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+        String expectedJson = mapper.writeValueAsString(expectedPage);
+        String responseString = response.getResponse().getContentAsString();
+        assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+        MvcResult response = mockMvc.perform(get("/api/students/page?cursor=garbage"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("BadRequestException", json.get("type"));
+        assertEquals("invalid cursor garbage", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+        MvcResult response = mockMvc.perform(get("/api/students/page?size=0"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("size must be between 1 and 500", json.get("message"));
+    }
+
+    // Tests for /export.ndjson
+
+    @Test
+    public void logged_out_users_cannot_export() throws Exception {
+        mockMvc.perform(get("/api/students/export.ndjson"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_export_as_ndjson() throws Exception {
+
+        // arrange
+
+        Student row1 = Student.builder().id(1L).firstName("first1").lastName("last1").perm("100000").email("student1@ucsb.edu").phoneNumber("805-555-0001").major("CS").build();
+        Student row2 = Student.builder().id(2L).firstName("first2").lastName("last2").perm("200000").email("student2@ucsb.edu").phoneNumber("805-555-0002").major("CS").build();
+
+        when(studentRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row1, row2));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/students/export.ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn();
+
+        // assert
+
+        verify(studentRepository, times(1)).streamAllByOrderByIdAsc();
+        String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+        assertEquals(expected, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_export_empty_table() throws Exception {
+        when(studentRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+
+        MvcResult response = mockMvc.perform(get("/api/students/export.ndjson"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertEquals("", response.getResponse().getContentAsString());
+    }
+
+    // Tests for /bulk
+
+    @Test
+    public void logged_out_users_cannot_bulk_create() throws Exception {
+        mockMvc.perform(post("/api/students/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+        mockMvc.perform(post("/api/students/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+        // arrange
+
+        Student good = Student.builder().id(7L).firstName("first1").lastName("last1").perm("100000").email("student1@ucsb.edu").phoneNumber("805-555-0001").major("CS").build();
+        Student bad = Student.builder().build();
+        String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+        when(studentRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // act
+        MvcResult response = mockMvc.perform(post("/api/students/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        good.setId(0);
+        verify(studentRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+        BulkResult<Student> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("firstName is required", "lastName is required", "perm is required", "email is required", "phoneNumber is required", "major is required"))));
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+        MvcResult response = mockMvc.perform(post("/api/students/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("request body must be a non-empty JSON array", json.get("message"));
+    }
+
+    // Tests for /changes
+
+    @Test
+    public void logged_out_users_cannot_get_changes() throws Exception {
+        mockMvc.perform(get("/api/students/changes?since=2022-05-01T10:00:00Z"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_rows_changed_and_deleted_since_cursor() throws Exception {
+        // within the retention window of the real clock
+        Instant since = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        Student changed = Student.builder().id(7L).build();
+        when(studentRepository.findByLastModifiedAfterOrderByLastModifiedAsc(eq(since), any())).thenReturn(List.of(changed));
+        when(tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(eq("student"), eq(since), any()))
+                .thenReturn(List.of(Tombstone.builder().entityName("student").rowId("9").deletedAt(since).build()));
+
+        MvcResult response = mockMvc.perform(get("/api/students/changes?since=" + since))
+                .andExpect(status().isOk()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(false, json.get("resync"));
+        assertEquals(List.of("9"), json.get("deletes"));
+        assertEquals(1, ((List<?>) json.get("upserts")).size());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_delete_leaves_a_tombstone() throws Exception {
+        when(studentRepository.deleteRowById(eq(15L))).thenReturn(1);
+
+        mockMvc.perform(delete("/api/students?id=15").with(csrf()))
+                .andExpect(status().isOk());
+
+        verify(tombstoneRepository, times(1)).save(any(Tombstone.class));
+    }
+
+    // Tests for suggest
+
+    @Test
+    public void logged_out_users_cannot_get_suggestions() throws Exception {
+        mockMvc.perform(get("/api/students/suggest?field=lastName&prefix=Da"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_gets_suggestions_for_a_field() throws Exception {
+        when(autocompleteService.suggest(eq(Student.class), eq("lastName"), eq("Da"), eq(null))).thenReturn(List.of("Davis", "Daniels"));
+
+        MvcResult response = mockMvc.perform(get("/api/students/suggest?field=lastName&prefix=Da"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertEquals(mapper.writeValueAsString(List.of("Davis", "Daniels")), response.getResponse().getContentAsString());
+    }
 }
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.GenerationReport;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SyntheticDataService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+
+@WebMvcTest(controllers = SyntheticDataController.class)
+@Import(TestConfig.class)
+public class SyntheticDataControllerTests extends ControllerTestCase {
+
+  @MockBean
+  SyntheticDataService syntheticDataService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void generate__logged_out() throws Exception {
+    mockMvc.perform(post("/api/admin/synthetic/generate?entities=book&rows=10").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void generate__user_logged_in() throws Exception {
+    mockMvc.perform(post("/api/admin/synthetic/generate?entities=book&rows=10").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void generate__admin_logged_in() throws Exception {
+
+    // arrange
+
+    List<GenerationReport> reports = List.of(
+        GenerationReport.builder().entity("book").seed(42).inserted(10).millis(5).rowsPerSecond(2000).build(),
+        GenerationReport.builder().entity("movie").seed(42).inserted(10).millis(4).rowsPerSecond(2500).build());
+    when(syntheticDataService.generate(List.of("book", "movie"), 100L, 10L, 42L)).thenReturn(reports);
+
+    // act
+
+    MvcResult response = mockMvc.perform(
+        post("/api/admin/synthetic/generate?entities=book,movie&rows=10&seed=42&start=100").with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(syntheticDataService, times(1)).generate(List.of("book", "movie"), 100L, 10L, 42L);
+    assertEquals(mapper.writeValueAsString(reports), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void generate__bad_request() throws Exception {
+    when(syntheticDataService.generate(anyList(), anyLong(), anyLong(), anyLong()))
+        .thenThrow(new BadRequestException("unknown entity dragons"));
+
+    mockMvc.perform(post("/api/admin/synthetic/generate?entities=dragons&rows=10").with(csrf()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void generate__too_many_rows_for_one_request() throws Exception {
+    MvcResult response = mockMvc.perform(post("/api/admin/synthetic/generate?entities=book,movie&rows=5001").with(csrf()))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    verify(syntheticDataService, never()).generate(anyList(), anyLong(), anyLong(), anyLong());
+    assertEquals("a request may generate at most 10000 rows in total; use the command-line runner (app.synthetic.entities) for larger runs",
+        responseToJson(response).get("message"));
+  }
+}
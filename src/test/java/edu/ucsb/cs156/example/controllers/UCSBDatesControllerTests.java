@@ -5,6 +5,11 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.UpcomingDatesService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +21,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,16 +31,20 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.List;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, ChangeTokens.class})
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +53,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        UpcomingDatesService upcomingDatesService;
+
         // Authorization tests for /api/ucsbdates/admin/all
 
         @Test
@@ -189,6 +203,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+                verify(upcomingDatesService, times(1)).index(ucsbDate1);
                 String expectedJson = mapper.writeValueAsString(ucsbDate1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -201,13 +216,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                UCSBDate ucsbDate1 = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
+                when(ucsbDateRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -216,8 +225,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
-                verify(ucsbDateRepository, times(1)).delete(any());
+                verify(ucsbDateRepository, times(1)).deleteRowById(15L);
+                verify(upcomingDatesService, times(1)).remove(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -229,7 +238,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -238,7 +247,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(15L);
+                verify(ucsbDateRepository, times(1)).deleteRowById(15L);
+                verify(upcomingDatesService, never()).remove(anyLong());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 15 not found", json.get("message"));
         }
@@ -251,12 +261,6 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                UCSBDate ucsbDateOrig = UCSBDate.builder()
-                                .name("firstDayOfClasses")
-                                .quarterYYYYQ("20222")
-                                .localDateTime(ldt1)
-                                .build();
-
                 UCSBDate ucsbDateEdited = UCSBDate.builder()
                                 .name("firstDayOfFestivus")
                                 .quarterYYYYQ("20232")
@@ -265,7 +269,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbDateEdited);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
+                when(ucsbDateRepository.updateRowById(eq(67L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -277,10 +281,17 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
-                verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+                ucsbDateEdited.setId(67L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(ucsbDateRepository, times(1)).updateRowById(eq(67L), any(), stamp.capture());
+                ucsbDateEdited.setVersion(stamp.getValue().toEpochMilli());
+                ucsbDateEdited.setLastModified(stamp.getValue());
+                verify(ucsbDateRepository, times(1)).updateRowById(eq(67L), eq(ucsbDateEdited), any());
+                // the update is the only statement; the row is not read back
+                verify(ucsbDateRepository, never()).findById(any());
+                verify(upcomingDatesService, times(1)).index(ucsbDateEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(ucsbDateEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -298,7 +309,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(ucsbDateRepository.updateRowById(eq(67L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -310,9 +321,245 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDateRepository, times(1)).findById(67L);
+                verify(ucsbDateRepository, times(1)).updateRowById(eq(67L), any(), any());
+                verify(upcomingDatesService, never()).index(any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder().id(1L).quarterYYYYQ("20222").name("date1").localDateTime(LocalDateTime.parse("2022-01-01T00:00:00")).build();
+                UCSBDate row2 = UCSBDate.builder().id(2L).quarterYYYYQ("20222").name("date2").localDateTime(LocalDateTime.parse("2022-01-02T00:00:00")).build();
+                UCSBDate row3 = UCSBDate.builder().id(3L).quarterYYYYQ("20222").name("date3").localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<UCSBDate> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, UCSBDatesController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                UCSBDate row3 = UCSBDate.builder().id(3L).quarterYYYYQ("20222").name("date3").localDateTime(LocalDateTime.parse("2022-01-03T00:00:00")).build();
+
+                when(ucsbDateRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?cursor=" + UCSBDatesController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<UCSBDate> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                UCSBDate good = UCSBDate.builder().id(7L).quarterYYYYQ("20222").name("date1").localDateTime(LocalDateTime.parse("2022-01-01T00:00:00")).build();
+                UCSBDate bad = UCSBDate.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(ucsbDateRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(ucsbDateRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                verify(upcomingDatesService, times(1)).index(good);
+                BulkResult<UCSBDate> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("quarterYYYYQ is required", "name is required", "localDateTime is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/ucsbdates/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for /between
+
+        @Test
+        public void logged_out_users_cannot_get_between() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/between?from=2022-01-01T00:00:00"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_between_two_times() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder().id(5L).quarterYYYYQ("20222").name("date1").localDateTime(LocalDateTime.parse("2022-01-03T08:00:00")).build();
+                UCSBDate row2 = UCSBDate.builder().id(2L).quarterYYYYQ("20222").name("date2").localDateTime(LocalDateTime.parse("2022-01-03T09:30:00")).build();
+                UCSBDate row3 = UCSBDate.builder().id(9L).quarterYYYYQ("20222").name("date3").localDateTime(LocalDateTime.parse("2022-02-01T00:00:00")).build();
+
+                when(ucsbDateRepository.findBetween(eq(LocalDateTime.parse("2022-01-01T00:00:00")), eq(-1L), eq(LocalDateTime.parse("2022-03-31T23:59:59")), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/between?from=2022-01-01T00:00:00&to=2022-03-31T23:59:59&size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                KeysetPage<UCSBDate> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, UCSBDatesController.encodeCursor("2022-01-03T09:30,2"));
+                assertEquals(mapper.writeValueAsString(expectedPage), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void between_with_a_quarter_continues_from_cursor_and_defaults_open_bounds() throws Exception {
+                when(ucsbDateRepository.findInQuarterBetween(any(), any(), anyLong(), any(), any())).thenReturn(new ArrayList<>());
+
+                mockMvc.perform(get("/api/ucsbdates/between?quarterYYYYQ=20222&cursor=" + UCSBDatesController.encodeCursor("2022-01-03T09:30,2")))
+                                .andExpect(status().isOk());
+
+                verify(ucsbDateRepository, times(1)).findInQuarterBetween("20222", LocalDateTime.parse("2022-01-03T09:30:00"), 2L,
+                                LocalDateTime.parse("9999-12-31T23:59:59"), PageRequest.of(0, 51));
+                verify(ucsbDateRepository, never()).findBetween(any(), anyLong(), any(), any());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void between_rejects_reversed_bounds_and_bad_cursors() throws Exception {
+                MvcResult reversed = mockMvc.perform(get("/api/ucsbdates/between?from=2022-02-01T00:00:00&to=2022-01-01T00:00:00"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("from must not be after to", responseToJson(reversed).get("message"));
+
+                String cursor = UCSBDatesController.encodeCursor("2022-01-03T09:30");
+                MvcResult badCursor = mockMvc.perform(get("/api/ucsbdates/between?cursor=" + cursor))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("invalid cursor " + cursor, responseToJson(badCursor).get("message"));
+        }
+
+        // Tests for /upcoming
+
+        @Test
+        public void logged_out_users_cannot_get_upcoming() throws Exception {
+                mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_upcoming_dates() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder().id(5L).quarterYYYYQ("20222").name("date1").localDateTime(LocalDateTime.parse("2022-01-03T08:00:00")).build();
+                UCSBDate row2 = UCSBDate.builder().id(2L).quarterYYYYQ("20222").name("date2").localDateTime(LocalDateTime.parse("2022-01-03T09:30:00")).build();
+
+                when(upcomingDatesService.upcoming(2)).thenReturn(List.of(row1, row2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdates/upcoming?n=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(upcomingDatesService, times(1)).upcoming(2);
+                assertEquals(mapper.writeValueAsString(List.of(row1, row2)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void upcoming_defaults_n_and_rejects_n_out_of_range() throws Exception {
+                when(upcomingDatesService.upcoming(10)).thenReturn(List.of());
+
+                mockMvc.perform(get("/api/ucsbdates/upcoming"))
+                                .andExpect(status().isOk());
+                verify(upcomingDatesService, times(1)).upcoming(10);
+
+                MvcResult tooMany = mockMvc.perform(get("/api/ucsbdates/upcoming?n=101"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                assertEquals("n must be between 1 and 100", responseToJson(tooMany).get("message"));
+        }
 }
@@ -5,7 +5,13 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.DiningCommonsStore;
+import edu.ucsb.cs156.example.models.NearbyResult;
+import edu.ucsb.cs156.example.services.GeoIndex;
+import edu.ucsb.cs156.example.services.ChangeTokens;
 
+import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
@@ -13,15 +19,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,9 +37,11 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, DiningCommonsStore.class, ChangeTokens.class})
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,6 +50,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @Autowired
+        DiningCommonsStore diningCommonsStore;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
@@ -95,7 +108,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .longitude(-119.85277)
                                 .build();
 
-                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(commons));
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(commons));
+                diningCommonsStore.refresh();
+                clearInvocations(ucsbDiningCommonsRepository);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo"))
@@ -103,7 +118,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDiningCommonsRepository, times(1)).findById(eq("carrillo"));
+                verifyNoInteractions(ucsbDiningCommonsRepository);
                 String expectedJson = mapper.writeValueAsString(commons);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -115,7 +130,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // arrange
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+                diningCommonsStore.refresh();
+                clearInvocations(ucsbDiningCommonsRepository);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=munger-hall"))
@@ -123,7 +140,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDiningCommonsRepository, times(1)).findById(eq("munger-hall"));
+                verifyNoInteractions(ucsbDiningCommonsRepository);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("EntityNotFoundException", json.get("type"));
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
@@ -159,6 +176,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 expectedCommons.addAll(Arrays.asList(carrillo, dlg));
 
                 when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+                diningCommonsStore.refresh();
+                clearInvocations(ucsbDiningCommonsRepository);
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
@@ -166,7 +185,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+                verifyNoInteractions(ucsbDiningCommonsRepository);
                 String expectedJson = mapper.writeValueAsString(expectedCommons);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -204,20 +223,29 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
-        public void admin_can_delete_a_date() throws Exception {
+        public void admin_posting_an_existing_code_gets_a_conflict() throws Exception {
                 // arrange
 
-                UCSBDiningCommons portola = UCSBDiningCommons.builder()
-                                .name("Portola")
-                                .code("portola")
-                                .hasSackMeal(true)
-                                .hasTakeOutMeal(true)
-                                .hasDiningCam(true)
-                                .latitude(34.417723)
-                                .longitude(-119.867427)
-                                .build();
+                when(ucsbDiningCommonsRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate key ortega"));
 
-                when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ucsbdiningcommons/post?name=Ortega&code=ortega&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.410987&longitude=-119.84709")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("DataIntegrityViolationException", json.get("type"));
+                assertEquals("request conflicts with data already stored", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_a_date() throws Exception {
+                // arrange
+
+                when(ucsbDiningCommonsRepository.deleteRowById(eq("portola"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -226,8 +254,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-                verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsRepository, times(1)).deleteRowById("portola");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -239,7 +266,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.deleteRowById(eq("munger-hall"))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -248,7 +275,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).deleteRowById("munger-hall");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
         }
@@ -258,16 +285,6 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_commons() throws Exception {
                 // arrange
 
-                UCSBDiningCommons carrilloOrig = UCSBDiningCommons.builder()
-                                .name("Carrillo")
-                                .code("carrillo")
-                                .hasSackMeal(false)
-                                .hasTakeOutMeal(false)
-                                .hasDiningCam(true)
-                                .latitude(34.409953)
-                                .longitude(-119.85277)
-                                .build();
-
                 UCSBDiningCommons carrilloEdited = UCSBDiningCommons.builder()
                                 .name("Carrillo Dining Hall")
                                 .code("carrillo")
@@ -280,7 +297,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(carrilloEdited);
 
-                when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
+                when(ucsbDiningCommonsRepository.updateRowById(eq("carrillo"), any(), any())).thenReturn(1);
+                UCSBDiningCommons carrilloStored = mapper.readValue(requestBody, UCSBDiningCommons.class);
+                carrilloStored.setVersion(1L);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrilloStored));
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -292,10 +312,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
-                verify(ucsbDiningCommonsRepository, times(1)).save(carrilloEdited); // should be saved with updated info
+                carrilloEdited.setCode("carrillo");
+                verify(ucsbDiningCommonsRepository, times(1)).updateRowById(eq("carrillo"), eq(carrilloEdited), any());
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(carrilloStored), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -315,7 +335,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedCommons);
 
-                when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsRepository.updateRowById(eq("munger-hall"), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -327,9 +347,254 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+                verify(ucsbDiningCommonsRepository, times(1)).updateRowById(eq("munger-hall"), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_page_through_commons_by_code() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+                UCSBDiningCommons dlg = UCSBDiningCommons.builder().code("de-la-guerra").name("De La Guerra").build();
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq(""), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(carrillo, dlg, ortega)));
+                when(ucsbDiningCommonsRepository.findByCodeGreaterThanOrderByCodeAsc(eq("de-la-guerra"), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ortega)));
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/ucsbdiningcommons/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+                String cursor = UCSBDiningCommonsController.encodeCursor("de-la-guerra");
+                MvcResult second = mockMvc.perform(get("/api/ucsbdiningcommons/page?size=2&cursor=" + cursor))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(new KeysetPage<>(Arrays.asList(carrillo, dlg), 2, cursor)),
+                                first.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(new KeysetPage<>(Arrays.asList(ortega), 1, null)),
+                                second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        // Tests for /upsert
+
+        @Test
+        public void logged_out_users_cannot_upsert() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommons/upsert").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_upsert() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommons/upsert").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_upsert_commons() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega")
+                        .hasSackMeal(true).hasTakeOutMeal(true).hasDiningCam(true)
+                        .latitude(34.410987).longitude(-119.84709).build();
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo")
+                        .hasDiningCam(true).latitude(34.409953).longitude(-119.85277).build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(ortega, carrillo));
+
+                when(ucsbDiningCommonsRepository.upsertAll(any())).thenReturn(2);
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommons/upsert").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).upsertAll(eq(Arrays.asList(ortega, carrillo)));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("2 UCSBDiningCommons upserted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_upsert_with_invalid_rows_is_a_bad_request() throws Exception {
+                UCSBDiningCommons noName = UCSBDiningCommons.builder().code("ortega").build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(noName, null));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommons/upsert").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDiningCommonsRepository, times(0)).upsertAll(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("row 0: name is required; row 1: row is required", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_upsert_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommons/upsert").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for the in-memory store behind /all and get by code
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void writes_rebuild_the_store_that_reads_are_served_from() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(carrillo));
+                diningCommonsStore.refresh();
+                clearInvocations(ucsbDiningCommonsRepository);
+
+                when(ucsbDiningCommonsRepository.deleteRowById(eq("carrillo"))).thenReturn(1);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(new ArrayList<>());
+
+                // act
+
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo"))
+                        .andExpect(status().isOk());
+                mockMvc.perform(delete("/api/ucsbdiningcommons?code=carrillo").with(csrf()))
+                        .andExpect(status().isOk());
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo"))
+                        .andExpect(status().isNotFound());
+                assertEquals("[]", response.getResponse().getContentAsString());
+                verify(ucsbDiningCommonsRepository, times(1)).findAll();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_current_etag_is_not_modified() throws Exception {
+                String etag = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                        .andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", etag))
+                        .andExpect(status().isNotModified()).andReturn();
+
+                assertEquals("", response.getResponse().getContentAsString());
+        }
+
+        // Tests for nearest
+
+        UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo")
+                .latitude(34.409953).longitude(-119.85277).build();
+        UCSBDiningCommons dlg = UCSBDiningCommons.builder().code("de-la-guerra").name("De La Guerra")
+                .latitude(34.409811).longitude(-119.845026).build();
+        UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").name("Portola")
+                .latitude(34.417723).longitude(-119.867427).build();
+        UCSBDiningCommons unmapped = UCSBDiningCommons.builder().code("unmapped").name("Unmapped").build();
+
+        private NearbyResult<UCSBDiningCommons> nearby(UCSBDiningCommons commons, double lat, double lon) {
+                return new NearbyResult<>(commons, GeoIndex.haversine(lat, lon, commons.getLatitude(), commons.getLongitude()));
+        }
+
+        @Test
+        public void logged_out_users_cannot_get_nearest() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_nearest_commons_closest_first() throws Exception {
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(portola, unmapped, carrillo, dlg));
+                diningCommonsStore.refresh();
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.4105&lon=-119.846&k=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                String expectedJson = mapper.writeValueAsString(List.of(
+                                nearby(dlg, 34.4105, -119.846), nearby(carrillo, 34.4105, -119.846)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_commons_within_radius() throws Exception {
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(portola, unmapped, carrillo, dlg));
+                diningCommonsStore.refresh();
+
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.4105&lon=-119.846&radius=1000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                String expectedJson = mapper.writeValueAsString(List.of(
+                                nearby(dlg, 34.4105, -119.846), nearby(carrillo, 34.4105, -119.846)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void nearest_sees_commons_added_through_the_controller() throws Exception {
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(portola));
+                diningCommonsStore.refresh();
+                when(ucsbDiningCommonsRepository.save(any())).thenReturn(carrillo);
+                when(ucsbDiningCommonsRepository.findAll()).thenReturn(Arrays.asList(portola, carrillo));
+
+                mockMvc.perform(post("/api/ucsbdiningcommons/post?code=carrillo&name=Carrillo&hasSackMeal=false&hasTakeOutMeal=false&hasDiningCam=true&latitude=34.409953&longitude=-119.85277")
+                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?lat=34.4105&lon=-119.846&k=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of(nearby(carrillo, 34.4105, -119.846))),
+                                response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void nearest_rejects_bad_coordinates_radius_and_k() throws Exception {
+                Map<String, String> cases = Map.of(
+                                "lat=91&lon=0", "lat must be between -90 and 90",
+                                "lat=0&lon=-180.5", "lon must be between -180 and 180",
+                                "lat=0&lon=0&radius=-1", "radius must not be negative",
+                                "lat=0&lon=0&k=0", "k must be between 1 and 100",
+                                "lat=0&lon=0&k=101", "k must be between 1 and 100");
+                for (Map.Entry<String, String> c : cases.entrySet()) {
+                        MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/nearest?" + c.getKey()))
+                                        .andExpect(status().isBadRequest()).andReturn();
+                        assertEquals(c.getValue(), responseToJson(response).get("message"));
+                }
+        }
 }
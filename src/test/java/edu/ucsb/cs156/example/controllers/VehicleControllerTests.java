@@ -5,6 +5,17 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Vehicle;
 import edu.ucsb.cs156.example.repositories.VehicleRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.services.EntityExportService;
+import edu.ucsb.cs156.example.services.FieldProjectionService;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.services.ChangeTokens;
+import edu.ucsb.cs156.example.services.AutocompleteService;
+import edu.ucsb.cs156.example.services.ChangeFeedService;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.entities.Tombstone;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +27,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.data.domain.PageRequest;
+import org.mockito.ArgumentCaptor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +37,10 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,9 +48,10 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = VehicleController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, EntityExportService.class, ChangeTokens.class, ChangeFeedService.class})
 public class VehicleControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +60,15 @@ public class VehicleControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        AutocompleteService autocompleteService;
+
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
+        @MockBean
+        FieldProjectionService fieldProjectionService;
+
     
 
         @Test
@@ -167,6 +194,32 @@ public class VehicleControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_selected_vehicle_fields() throws Exception {
+                List<Map<String, Object>> rows = List.of(Map.of("brand", "BMW"));
+                when(fieldProjectionService.findAll(eq(Vehicle.class), eq("brand"))).thenReturn(rows);
+
+                MvcResult response = mockMvc.perform(get("/api/vehicle/all?fields=brand"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(vehicleRepository, times(0)).findAll();
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_with_unknown_field_is_a_bad_request() throws Exception {
+                when(fieldProjectionService.findAll(eq(Vehicle.class), eq("colour")))
+                                .thenThrow(new BadRequestException("unknown field 'colour'"));
+
+                MvcResult response = mockMvc.perform(get("/api/vehicle/all?fields=colour"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("unknown field 'colour'", json.get("message"));
+        }
+
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_can_post_a_new_vehicle() throws Exception {
@@ -191,6 +244,7 @@ public class VehicleControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(vehicleRepository, times(1)).save(vehicle1);
+                verify(autocompleteService, times(1)).index(vehicle1);
                 String expectedJson = mapper.writeValueAsString(vehicle1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -203,14 +257,7 @@ public class VehicleControllerTests extends ControllerTestCase {
 
                 LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
 
-                Vehicle vehicle1 = Vehicle.builder()
-                                .brand("Cadillac")
-                                .model("Escalade")
-                                .licence("OG1")
-                                .year("2023")
-                                .build();
-
-                when(vehicleRepository.findById(eq(15L))).thenReturn(Optional.of(vehicle1));
+                when(vehicleRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -219,8 +266,8 @@ public class VehicleControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(vehicleRepository, times(1)).findById(15L);
-                verify(vehicleRepository, times(1)).delete(any());
+                verify(vehicleRepository, times(1)).deleteRowById(15L);
+                verify(autocompleteService, times(1)).remove(Vehicle.class, 15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Vehicle with id 15 deleted", json.get("message"));
@@ -232,7 +279,7 @@ public class VehicleControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(vehicleRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(vehicleRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -241,7 +288,7 @@ public class VehicleControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(vehicleRepository, times(1)).findById(15L);
+                verify(vehicleRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Vehicle with id 15 not found", json.get("message"));
         }
@@ -251,13 +298,6 @@ public class VehicleControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_vehicle() throws Exception {
                 // arrange
 
-                Vehicle vehicleOrig = Vehicle.builder()
-                                .brand("Cadillac")
-                                .model("Escalade")
-                                .licence("OG1")
-                                .year("2023")
-                                .build();
-
                 Vehicle vehicleEdited = Vehicle.builder()
                                 .brand("BMW")
                                 .model("X1")
@@ -267,7 +307,7 @@ public class VehicleControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(vehicleEdited);
 
-                when(vehicleRepository.findById(eq(67L))).thenReturn(Optional.of(vehicleOrig));
+                when(vehicleRepository.updateRowById(eq(67L), any(), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -279,10 +319,17 @@ public class VehicleControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(vehicleRepository, times(1)).findById(67L);
-                verify(vehicleRepository, times(1)).save(vehicleEdited); // should be saved with correct user
+                vehicleEdited.setId(67L);
+                ArgumentCaptor<Instant> stamp = ArgumentCaptor.forClass(Instant.class);
+                verify(vehicleRepository, times(1)).updateRowById(eq(67L), any(), stamp.capture());
+                vehicleEdited.setVersion(stamp.getValue().toEpochMilli());
+                vehicleEdited.setLastModified(stamp.getValue());
+                verify(vehicleRepository, times(1)).updateRowById(eq(67L), eq(vehicleEdited), any());
+                // the update is the only statement; the row is not read back
+                verify(vehicleRepository, never()).findById(any());
+                verify(autocompleteService, times(1)).index(vehicleEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(vehicleEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -302,7 +349,7 @@ public class VehicleControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDate);
 
-                when(vehicleRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(vehicleRepository.updateRowById(eq(67L), any(), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -314,9 +361,243 @@ public class VehicleControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(vehicleRepository, times(1)).findById(67L);
+                verify(vehicleRepository, times(1)).updateRowById(eq(67L), any(), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Vehicle with id 67 not found", json.get("message"));
 
         }
-}
\ No newline at end of file
+
+        // Tests for keyset paging
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/vehicle/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_first_page_with_next_cursor() throws Exception {
+
+                // arrange
+
+                Vehicle row1 = Vehicle.builder().id(1L).brand("brand1").model("model1").licence("LIC1").year("2021").build();
+                Vehicle row2 = Vehicle.builder().id(2L).brand("brand2").model("model2").licence("LIC2").year("2022").build();
+                Vehicle row3 = Vehicle.builder().id(3L).brand("brand3").model("model3").licence("LIC3").year("2023").build();
+
+                when(vehicleRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row1, row2, row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/vehicle/page?size=2"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(vehicleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 3)));
+                KeysetPage<Vehicle> expectedPage = new KeysetPage<>(Arrays.asList(row1, row2), 2, VehicleController.encodeCursor(2L));
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_last_page_from_cursor() throws Exception {
+
+                // arrange
+
+                Vehicle row3 = Vehicle.builder().id(3L).brand("brand3").model("model3").licence("LIC3").year("2023").build();
+
+                when(vehicleRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51))))
+                                .thenReturn(new ArrayList<>(Arrays.asList(row3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/vehicle/page?cursor=" + VehicleController.encodeCursor(2L)))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(vehicleRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(2L), eq(PageRequest.of(0, 51)));
+                KeysetPage<Vehicle> expectedPage = new KeysetPage<>(Arrays.asList(row3), 1, null);
+                String expectedJson = mapper.writeValueAsString(expectedPage);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_invalid_cursor_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/vehicle/page?cursor=garbage"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("invalid cursor garbage", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_page_with_size_out_of_range_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/vehicle/page?size=0"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("size must be between 1 and 500", json.get("message"));
+        }
+
+        // Tests for /export.ndjson
+
+        @Test
+        public void logged_out_users_cannot_export() throws Exception {
+                mockMvc.perform(get("/api/vehicle/export.ndjson"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_export_as_ndjson() throws Exception {
+
+                // arrange
+
+                Vehicle row1 = Vehicle.builder().id(1L).brand("brand1").model("model1").licence("LIC1").year("2021").build();
+                Vehicle row2 = Vehicle.builder().id(2L).brand("brand2").model("model2").licence("LIC2").year("2022").build();
+
+                when(vehicleRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(row1, row2));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/vehicle/export.ndjson"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                        .andReturn();
+
+                // assert
+
+                verify(vehicleRepository, times(1)).streamAllByOrderByIdAsc();
+                String expected = mapper.writeValueAsString(row1) + "\n" + mapper.writeValueAsString(row2) + "\n";
+                assertEquals(expected, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_export_empty_table() throws Exception {
+                when(vehicleRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+
+                MvcResult response = mockMvc.perform(get("/api/vehicle/export.ndjson"))
+                        .andExpect(status().isOk()).andReturn();
+
+                assertEquals("", response.getResponse().getContentAsString());
+        }
+
+        // Tests for /bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/vehicle/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_create() throws Exception {
+                mockMvc.perform(post("/api/vehicle/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_gets_a_result_for_every_row() throws Exception {
+
+                // arrange
+
+                Vehicle good = Vehicle.builder().id(7L).brand("brand1").model("model1").licence("LIC1").year("2021").build();
+                Vehicle bad = Vehicle.builder().build();
+                String requestBody = mapper.writeValueAsString(Arrays.asList(good, bad));
+
+                when(vehicleRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+                // act
+                MvcResult response = mockMvc.perform(post("/api/vehicle/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                good.setId(0);
+                verify(vehicleRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+                BulkResult<Vehicle> expected = new BulkResult<>(1, 1, 0, Arrays.asList(
+                        new BulkRowResult<>(0, BulkRowResult.CREATED, good, List.of()),
+                        new BulkRowResult<>(1, BulkRowResult.REJECTED, null, List.of("brand is required", "model is required", "licence is required", "year is required"))));
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_create_with_empty_array_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(post("/api/vehicle/bulk").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("request body must be a non-empty JSON array", json.get("message"));
+        }
+
+        // Tests for /changes
+
+        @Test
+        public void logged_out_users_cannot_get_changes() throws Exception {
+                mockMvc.perform(get("/api/vehicle/changes?since=2022-05-01T10:00:00Z"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_rows_changed_and_deleted_since_cursor() throws Exception {
+                // within the retention window of the real clock
+                Instant since = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+                Vehicle changed = Vehicle.builder().id(7L).build();
+                when(vehicleRepository.findByLastModifiedAfterOrderByLastModifiedAsc(eq(since), any())).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(eq("vehicle"), eq(since), any()))
+                                .thenReturn(List.of(Tombstone.builder().entityName("vehicle").rowId("9").deletedAt(since).build()));
+
+                MvcResult response = mockMvc.perform(get("/api/vehicle/changes?since=" + since))
+                                .andExpect(status().isOk()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(false, json.get("resync"));
+                assertEquals(List.of("9"), json.get("deletes"));
+                assertEquals(1, ((List<?>) json.get("upserts")).size());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_delete_leaves_a_tombstone() throws Exception {
+                when(vehicleRepository.deleteRowById(eq(15L))).thenReturn(1);
+
+                mockMvc.perform(delete("/api/vehicle?id=15").with(csrf()))
+                                .andExpect(status().isOk());
+
+                verify(tombstoneRepository, times(1)).save(any(Tombstone.class));
+        }
+
+        // Tests for suggest
+
+        @Test
+        public void logged_out_users_cannot_get_suggestions() throws Exception {
+                mockMvc.perform(get("/api/vehicle/suggest?field=brand&prefix=to"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_suggestions_for_a_field() throws Exception {
+                when(autocompleteService.suggest(eq(Vehicle.class), eq("brand"), eq("to"), eq(null))).thenReturn(List.of("Toyota", "Tesla"));
+
+                MvcResult response = mockMvc.perform(get("/api/vehicle/suggest?field=brand&prefix=to"))
+                                .andExpect(status().isOk()).andReturn();
+
+                assertEquals(mapper.writeValueAsString(List.of("Toyota", "Tesla")), response.getResponse().getContentAsString());
+        }
+}
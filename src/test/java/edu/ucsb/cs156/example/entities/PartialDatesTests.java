@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PartialDatesTests {
+
+  @Test
+  void test_full_and_partial_dates_parse_to_their_first_day() {
+    assertEquals(LocalDate.of(2009, 12, 18), PartialDates.parse("2009-12-18"));
+    assertEquals(LocalDate.of(2009, 12, 1), PartialDates.parse("2009-12"));
+    assertEquals(LocalDate.of(2009, 1, 1), PartialDates.parse(" 2009 "));
+    assertEquals(LocalDate.of(2022, 1, 3), PartialDates.parse("2022-1-3"));
+    assertEquals(LocalDate.of(2022, 1, 3), PartialDates.parse("2022-01-03T00:00:00"));
+  }
+
+  @Test
+  void test_text_that_is_not_a_date_gives_null() {
+    assertNull(PartialDates.parse(null));
+    assertNull(PartialDates.parse(""));
+    assertNull(PartialDates.parse("soon"));
+    assertNull(PartialDates.parse("12/18/2009"));
+    assertNull(PartialDates.parse("2009-13-01"));
+    assertNull(PartialDates.parse("2009-02-30"));
+  }
+
+  @Test
+  void test_entities_fill_typed_column_before_writing() {
+    Book book = Book.builder().title("t").author("a").date("2023").build();
+    book.parseDate();
+    assertEquals(LocalDate.of(2023, 1, 1), book.getPublishedOn());
+
+    Movie movie = Movie.builder().movieName("m").directorName("d").releaseDate("2009-12-18").build();
+    movie.parseReleaseDate();
+    assertEquals(LocalDate.of(2009, 12, 18), movie.getReleasedOn());
+  }
+
+  @Test
+  void test_typed_column_is_not_part_of_json_or_equality() throws Exception {
+    Book book = Book.builder().id(1L).title("t").author("a").date("2023").build();
+    Book parsed = Book.builder().id(1L).title("t").author("a").date("2023").build();
+    parsed.parseDate();
+
+    assertEquals(book, parsed);
+    ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    assertEquals(mapper.writeValueAsString(book), mapper.writeValueAsString(parsed));
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class UCSBDiningCommonsTests {
+
+  @Test
+  void test_commons_is_new_until_loaded_or_persisted() {
+    UCSBDiningCommons commons = UCSBDiningCommons.builder().code("ortega").build();
+    assertTrue(commons.isNew());
+    assertEquals("ortega", commons.getId());
+
+    commons.markPersisted();
+    assertFalse(commons.isNew());
+  }
+
+  @Test
+  void test_persisted_flag_is_not_part_of_equality() {
+    UCSBDiningCommons loaded = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    loaded.markPersisted();
+
+    UCSBDiningCommons built = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    assertEquals(built, loaded);
+    assertEquals(built.hashCode(), loaded.hashCode());
+  }
+}
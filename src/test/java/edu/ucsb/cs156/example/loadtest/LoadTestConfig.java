@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+@TestConfiguration
+public class LoadTestConfig {
+
+  @Bean
+  public LoadTestLoginController loadTestLoginController() {
+    return new LoadTestLoginController();
+  }
+
+  // The load test boots the whole application, whose component scan also
+  // sees the test classes.  Keep out the mocks that the controller tests
+  // use (MockCurrentUserServiceImpl would clash with the real service) and
+  // the login controller, which is registered above.
+  public static class ExcludeTestComponents extends TypeExcludeFilter {
+    @Override
+    public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+      String className = metadataReader.getClassMetadata().getClassName();
+      return className.startsWith("edu.ucsb.cs156.example.testconfig.")
+          || className.startsWith("edu.ucsb.cs156.example.loadtest.");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj != null && obj.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+      return getClass().hashCode();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.example.services.AdminRoleService;
+
+// Stands in for the Google login during load tests.  GET /loadtest/login
+// puts an OAuth2 authentication into the caller's session with the same
+// attributes and authorities SecurityConfig would give a Google user with
+// that email, so every later request goes through the real security
+// filters, CSRF check and @PreAuthorize rules.  Only registered by
+// LoadTestConfig.
+
+@RestController
+public class LoadTestLoginController {
+
+  @Autowired
+  AdminRoleService adminRoleService;
+
+  @GetMapping("/loadtest/login")
+  public Map<String, Object> login(@RequestParam String email, HttpServletRequest request) {
+    Map<String, Object> attributes = Map.of(
+        "sub", "loadtest-" + email,
+        "email", email,
+        "name", "Load Test",
+        "given_name", "Load",
+        "family_name", "Test",
+        "email_verified", true,
+        "picture", "https://example.org/loadtest.jpg",
+        "locale", "en",
+        "hd", "ucsb.edu");
+
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    authorities.add(new OAuth2UserAuthority(attributes));
+    if (adminRoleService.isAdmin(email)) {
+      authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+    if (email.endsWith("@ucsb.edu")) {
+      authorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    }
+
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(new OAuth2AuthenticationToken(
+        new DefaultOAuth2User(authorities, attributes, "email"), authorities, "google"));
+    SecurityContextHolder.setContext(context);
+    request.getSession(true).setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+    return Map.of("email", email, "roles", authorities.stream().map(GrantedAuthority::getAuthority).toList());
+  }
+}
@@ -0,0 +1,279 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.filter.TypeExcludeFilters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.models.RouteTiming;
+import edu.ucsb.cs156.example.services.RequestTimings;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * End-to-end load test: the whole application on a random port with an
+ * in-memory H2 database, driven over HTTP by many concurrent clients.
+ *
+ * Each client logs in through LoadTestLoginController (a stand-in for the
+ * Google login), then sends a random mix of reads and writes, with the
+ * CSRF token from its XSRF-TOKEN cookie like the frontend does.  After a
+ * warmup, throughput and latency percentiles (as seen by the client) are
+ * reported per endpoint and written to a JSON file.
+ *
+ * Not part of the normal test run; use {@code mvn -P loadtest verify}.
+ * Settings (system properties): loadtest.clients, loadtest.seedRows,
+ * loadtest.warmupSeconds, loadtest.durationSeconds, loadtest.writeRatio
+ * and loadtest.report.
+ */
+
+@Slf4j
+@Tag("load")
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.devtools.restart.enabled=false",
+    "logging.level.edu.ucsb.cs156.example=WARN"
+})
+@Import(LoadTestConfig.class)
+@TypeExcludeFilters(LoadTestConfig.ExcludeTestComponents.class)
+class LoadTests {
+
+  static final int CLIENTS = Integer.getInteger("loadtest.clients", 16);
+  static final int SEED_ROWS = Integer.getInteger("loadtest.seedRows", 1000);
+  static final long WARMUP_SECONDS = Long.getLong("loadtest.warmupSeconds", 5);
+  static final long DURATION_SECONDS = Long.getLong("loadtest.durationSeconds", 30);
+  static final double WRITE_RATIO = Double.parseDouble(System.getProperty("loadtest.writeRatio", "0.2"));
+  static final String REPORT = System.getProperty("loadtest.report", "target/loadtest-report.json");
+
+  @LocalServerPort
+  int port;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  // every client is a separate admin user, so writes are allowed and the
+  // current-user lookups are not all for the same row
+  @DynamicPropertySource
+  static void adminEmails(DynamicPropertyRegistry registry) {
+    registry.add("app.admin.emails",
+        () -> IntStream.range(0, CLIENTS).mapToObj(LoadTests::email).collect(Collectors.joining(",")));
+  }
+
+  static String email(int client) {
+    return "loadtest%d@ucsb.edu".formatted(client);
+  }
+
+  @Test
+  void mixed_read_write_workload() throws Exception {
+    List<Long> seededIds = seed(new Client(0));
+
+    List<Worker> workers = new ArrayList<>();
+    for (int i = 0; i < CLIENTS; i++) {
+      workers.add(new Worker(new Client(i), seededIds, new Random(i)));
+    }
+
+    run(workers, WARMUP_SECONDS, new RequestTimings(), new ConcurrentHashMap<>());
+    RequestTimings timings = new RequestTimings();
+    Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    long elapsedNanos = run(workers, DURATION_SECONDS, timings, errors);
+
+    List<Map<String, Object>> report = report(timings, errors, elapsedNanos);
+    Files.createDirectories(Path.of(REPORT).toAbsolutePath().getParent());
+    mapper.writerWithDefaultPrettyPrinter().writeValue(Path.of(REPORT).toFile(), report);
+
+    long requests = timings.getTimings().stream().mapToLong(RouteTiming::getCount).sum();
+    long failed = errors.values().stream().mapToLong(LongAdder::sum).sum();
+    assertTrue(requests > 0, "no requests completed");
+    assertEquals(0, failed, "failed requests per endpoint: " + errors);
+  }
+
+  private List<Long> seed(Client client) throws IOException, InterruptedException {
+    List<Book> books = new ArrayList<>();
+    for (int i = 0; i < SEED_ROWS; i++) {
+      books.add(Book.builder().title("Seed " + i).author("Author " + (i % 100)).date("2022-01-03").build());
+    }
+    HttpResponse<String> response = client.send("POST", "/api/book/bulk", mapper.writeValueAsString(books));
+    assertEquals(200, response.statusCode(), response.body());
+    List<Long> ids = new ArrayList<>();
+    for (JsonNode row : mapper.readTree(response.body()).get("rows")) {
+      ids.add(row.get("row").get("id").asLong());
+    }
+    return ids;
+  }
+
+  private long run(List<Worker> workers, long seconds, RequestTimings timings, Map<String, LongAdder> errors)
+      throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Worker worker : workers) {
+        futures.add(executor.submit(() -> {
+          while (System.nanoTime() < deadline) {
+            worker.step(timings, errors);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return System.nanoTime() - start;
+  }
+
+  private List<Map<String, Object>> report(RequestTimings timings, Map<String, LongAdder> errors, long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    List<Map<String, Object>> rows = new ArrayList<>();
+    StringBuilder table = new StringBuilder("%n%-32s %8s %6s %9s %8s %8s %8s %8s%n".formatted(
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+    for (RouteTiming timing : timings.getTimings()) {
+      long failed = errors.getOrDefault(timing.getRoute(), new LongAdder()).sum();
+      double throughput = timing.getCount() / seconds;
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("endpoint", timing.getRoute());
+      row.put("requests", timing.getCount());
+      row.put("errors", failed);
+      row.put("requestsPerSecond", throughput);
+      row.put("p50Millis", timing.getP50Millis());
+      row.put("p95Millis", timing.getP95Millis());
+      row.put("p99Millis", timing.getP99Millis());
+      row.put("maxMillis", timing.getMaxMillis());
+      rows.add(row);
+      table.append("%-32s %8d %6d %9.1f %8.2f %8.2f %8.2f %8.2f%n".formatted(timing.getRoute(), timing.getCount(),
+          failed, throughput, timing.getP50Millis(), timing.getP95Millis(), timing.getP99Millis(),
+          timing.getMaxMillis()));
+    }
+    log.warn("load test: {} clients, {} s, write ratio {}{}", CLIENTS, DURATION_SECONDS, WRITE_RATIO, table);
+    return rows;
+  }
+
+  // One simulated user: its own session, CSRF token and set of books it
+  // created, so its updates and deletes never race with another client's.
+  class Worker {
+    final Client client;
+    final List<Long> seededIds;
+    final Random random;
+    final List<Long> ownIds = new ArrayList<>();
+
+    Worker(Client client, List<Long> seededIds, Random random) {
+      this.client = client;
+      this.seededIds = seededIds;
+      this.random = random;
+    }
+
+    void step(RequestTimings timings, Map<String, LongAdder> errors) throws Exception {
+      if (random.nextDouble() < WRITE_RATIO) {
+        write(timings, errors);
+      } else {
+        read(timings, errors);
+      }
+    }
+
+    private void read(RequestTimings timings, Map<String, LongAdder> errors) throws Exception {
+      switch (random.nextInt(5)) {
+        case 0 -> call(timings, errors, "GET /api/currentUser", "GET", "/api/currentUser", null);
+        case 1 -> call(timings, errors, "GET /api/book/all", "GET", "/api/book/all", null);
+        case 2 -> call(timings, errors, "GET /api/book/page", "GET", "/api/book/page?size=50", null);
+        case 3 -> call(timings, errors, "GET /api/ucsbdiningcommons/all", "GET", "/api/ucsbdiningcommons/all", null);
+        default -> call(timings, errors, "GET /api/book", "GET",
+            "/api/book?id=" + seededIds.get(random.nextInt(seededIds.size())), null);
+      }
+    }
+
+    private void write(RequestTimings timings, Map<String, LongAdder> errors) throws Exception {
+      int op = ownIds.isEmpty() ? 0 : random.nextInt(3);
+      if (op == 0) {
+        HttpResponse<String> response = call(timings, errors, "POST /api/book/post", "POST",
+            "/api/book/post?title=Load&author=Test&date=2022-01-03", null);
+        if (response.statusCode() == 200) {
+          ownIds.add(mapper.readTree(response.body()).get("id").asLong());
+        }
+      } else if (op == 1) {
+        long id = ownIds.get(random.nextInt(ownIds.size()));
+        Book book = Book.builder().title("Updated").author("Test").date("2022-01-04").build();
+        call(timings, errors, "PUT /api/book", "PUT", "/api/book?id=" + id, mapper.writeValueAsString(book));
+      } else {
+        long id = ownIds.remove(ownIds.size() - 1);
+        call(timings, errors, "DELETE /api/book", "DELETE", "/api/book?id=" + id, null);
+      }
+    }
+
+    private HttpResponse<String> call(RequestTimings timings, Map<String, LongAdder> errors, String route,
+        String method, String path, String body) throws Exception {
+      long start = System.nanoTime();
+      HttpResponse<String> response = client.send(method, path, body);
+      timings.record(route, System.nanoTime() - start);
+      if (response.statusCode() >= 400) {
+        errors.computeIfAbsent(route, k -> new LongAdder()).increment();
+      }
+      return response;
+    }
+  }
+
+  // HTTP client with its own cookie jar, logged in as one user
+  class Client {
+    final CookieManager cookies = new CookieManager();
+    final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1).cookieHandler(cookies).build();
+
+    Client(int number) throws IOException, InterruptedException {
+      HttpResponse<String> response = send("GET", "/loadtest/login?email=" + email(number), null);
+      assertEquals(200, response.statusCode(), response.body());
+    }
+
+    HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+      HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+          .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+      if (body != null) {
+        request.header("Content-Type", "application/json");
+      }
+      for (HttpCookie cookie : cookies.getCookieStore().getCookies()) {
+        if (cookie.getName().equals("XSRF-TOKEN")) {
+          request.header("X-XSRF-TOKEN", cookie.getValue());
+        }
+      }
+      return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+  }
+}
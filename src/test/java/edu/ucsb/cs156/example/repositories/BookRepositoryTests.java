@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import edu.ucsb.cs156.example.entities.Book;
+
+@DataJpaTest
+class BookRepositoryTests {
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void test_updateRowById_is_one_statement_and_stores_what_put_returns() {
+    long id = entityManager.persistAndFlush(Book.builder().title("old").author("a").date("1999").build()).getId();
+    entityManager.clear();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    int updated = bookRepository.updateRowById(id, Book.builder().title("new").author("b").date("2021-03").build(), now);
+
+    assertEquals(1, updated);
+    assertEquals(1, statistics.getPrepareStatementCount());
+    Book stored = entityManager.find(Book.class, id);
+    assertEquals("new", stored.getTitle());
+    assertEquals(now.toEpochMilli(), stored.getVersion());
+    assertEquals(now, stored.getLastModified());
+  }
+
+  @Test
+  void test_updateRowById_of_a_missing_row_updates_nothing() {
+    assertEquals(0, bookRepository.updateRowById(404L, Book.builder().title("t").build(), Instant.now()));
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+
+class UCSBDiningCommonsRepositoryCustomImplTests {
+
+  JdbcTemplate jdbcTemplate;
+  UCSBDiningCommonsRepositoryCustomImpl repository;
+
+  @BeforeEach
+  void setup() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    repository = new UCSBDiningCommonsRepositoryCustomImpl();
+    repository.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Test
+  void test_upsertSqlFor_picks_statement_by_database() {
+    assertEquals(UCSBDiningCommonsRepositoryCustomImpl.H2_UPSERT,
+        UCSBDiningCommonsRepositoryCustomImpl.upsertSqlFor("H2"));
+    assertEquals(UCSBDiningCommonsRepositoryCustomImpl.POSTGRES_UPSERT,
+        UCSBDiningCommonsRepositoryCustomImpl.upsertSqlFor("PostgreSQL"));
+    assertThrows(IllegalStateException.class,
+        () -> UCSBDiningCommonsRepositoryCustomImpl.upsertSqlFor("MySQL"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_unsupported_database_fails_at_startup() {
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> repository.checkDatabaseSupported());
+    assertEquals("upsert is not supported on MySQL", e.getMessage());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_upsertAll_sends_one_batch_and_counts_rows() {
+    UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+    List<UCSBDiningCommons> rows = Arrays.asList(ortega, carrillo);
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+    when(jdbcTemplate.batchUpdate(eq(UCSBDiningCommonsRepositoryCustomImpl.H2_UPSERT), eq(rows), eq(2),
+        any(ParameterizedPreparedStatementSetter.class)))
+        .thenReturn(new int[][] { { 1, Statement.SUCCESS_NO_INFO } });
+
+    assertEquals(2, repository.upsertAll(rows));
+    assertEquals(2, repository.upsertAll(rows));
+
+    // the database product is only looked up once
+    verify(jdbcTemplate, times(1)).execute(any(ConnectionCallback.class));
+    verify(jdbcTemplate, times(2)).batchUpdate(eq(UCSBDiningCommonsRepositoryCustomImpl.H2_UPSERT), eq(rows),
+        anyInt(), any(ParameterizedPreparedStatementSetter.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_upsertAll_evicts_cached_commons() {
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    Cache cache = mock(Cache.class);
+    when(entityManagerFactory.getCache()).thenReturn(cache);
+    repository.entityManagerFactory = entityManagerFactory;
+    List<UCSBDiningCommons> rows = Arrays.asList(UCSBDiningCommons.builder().code("ortega").name("Ortega").build());
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+    when(jdbcTemplate.batchUpdate(any(String.class), eq(rows), anyInt(),
+        any(ParameterizedPreparedStatementSetter.class)))
+        .thenReturn(new int[][] { { 1 } });
+
+    repository.upsertAll(rows);
+
+    verify(cache, times(1)).evict(UCSBDiningCommons.class);
+  }
+}
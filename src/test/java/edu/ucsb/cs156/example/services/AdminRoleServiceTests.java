@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class AdminRoleServiceTests {
+
+  UserRepository userRepository;
+  AdminRoleService adminRoleService;
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    adminRoleService = new AdminRoleService();
+    adminRoleService.userRepository = userRepository;
+    adminRoleService.adminEmails = List.of("phtcon@ucsb.edu");
+    adminRoleService.buildConfiguredAdmins();
+  }
+
+  @Test
+  void test_configured_admin_needs_no_database() {
+    assertTrue(adminRoleService.isConfiguredAdmin("phtcon@ucsb.edu"));
+    assertTrue(adminRoleService.isAdmin("phtcon@ucsb.edu"));
+    verify(userRepository, times(0)).findByAdminTrue();
+  }
+
+  @Test
+  void test_database_admins_are_loaded_once() {
+    User admin = User.builder().email("admin@ucsb.edu").admin(true).build();
+    when(userRepository.findByAdminTrue()).thenReturn(List.of(admin));
+
+    assertTrue(adminRoleService.isAdmin("admin@ucsb.edu"));
+    assertFalse(adminRoleService.isAdmin("user@ucsb.edu"));
+    assertFalse(adminRoleService.isAdmin(null));
+    assertFalse(adminRoleService.isConfiguredAdmin("admin@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByAdminTrue();
+  }
+
+  @Test
+  void test_userWritten_updates_index() {
+    when(userRepository.findByAdminTrue()).thenReturn(List.of());
+    adminRoleService.refresh();
+
+    User u = User.builder().email("user@ucsb.edu").admin(true).build();
+    adminRoleService.userWritten(u);
+    assertTrue(adminRoleService.isAdmin("user@ucsb.edu"));
+
+    u.setAdmin(false);
+    adminRoleService.userWritten(u);
+    assertFalse(adminRoleService.isAdmin("user@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByAdminTrue();
+  }
+
+  @Test
+  void test_userRemoved_updates_index() {
+    User admin = User.builder().email("admin@ucsb.edu").admin(true).build();
+    when(userRepository.findByAdminTrue()).thenReturn(List.of(admin));
+    adminRoleService.refresh();
+
+    adminRoleService.userRemoved(User.builder().email("other@ucsb.edu").build());
+    assertTrue(adminRoleService.isAdmin("admin@ucsb.edu"));
+
+    adminRoleService.userRemoved(admin);
+    assertFalse(adminRoleService.isAdmin("admin@ucsb.edu"));
+  }
+
+  @Test
+  void test_entity_listener_updates_cache_and_index() {
+    when(userRepository.findByAdminTrue()).thenReturn(List.of());
+    adminRoleService.refresh();
+
+    UserCache userCache = new UserCache();
+    UserEntityListener listener = new UserEntityListener();
+    listener.userCache = userCache;
+    listener.adminRoleService = adminRoleService;
+
+    User u = User.builder().email("user@ucsb.edu").admin(true).build();
+    userCache.put("user@ucsb.edu", u);
+
+    listener.written(u);
+    assertFalse(userCache.get("user@ucsb.edu").isPresent());
+    assertTrue(adminRoleService.isAdmin("user@ucsb.edu"));
+
+    userCache.put("user@ucsb.edu", u);
+    listener.removed(u);
+    assertFalse(userCache.get("user@ucsb.edu").isPresent());
+    assertFalse(adminRoleService.isAdmin("user@ucsb.edu"));
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.Vehicle;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.repositories.VehicleRepository;
+
+class AutocompleteServiceTests {
+
+  AutocompleteService autocompleteService;
+
+  @BeforeEach
+  void setup() {
+    autocompleteService = new AutocompleteService();
+    autocompleteService.studentRepository = mock(StudentRepository.class);
+    autocompleteService.vehicleRepository = mock(VehicleRepository.class);
+    autocompleteService.restaurantRepository = mock(RestaurantRepository.class);
+    autocompleteService.bookRepository = mock(BookRepository.class);
+    when(autocompleteService.vehicleRepository.findAll()).thenReturn(List.of(
+        vehicle(1L, "Toyota", "Corolla"),
+        vehicle(2L, "Toyota", "Camry"),
+        vehicle(3L, "Tesla", "Model 3")));
+    when(autocompleteService.studentRepository.findAll()).thenReturn(List.of(
+        Student.builder().id(1L).firstName("Ann").lastName("Davis").major("CS").build()));
+    autocompleteService.rebuild();
+  }
+
+  private static Vehicle vehicle(long id, String brand, String model) {
+    return Vehicle.builder().id(id).brand(brand).model(model).licence("L" + id).year("2020").build();
+  }
+
+  @Test
+  void test_suggestions_come_from_the_tables_at_startup() {
+    assertEquals(List.of("Toyota", "Tesla"), autocompleteService.suggest(Vehicle.class, "brand", "t", null));
+    assertEquals(List.of("Camry", "Corolla"), autocompleteService.suggest(Vehicle.class, "model", "c", null));
+    assertEquals(List.of("Davis"), autocompleteService.suggest(Student.class, "lastName", "da", null));
+    assertEquals(List.of(), autocompleteService.suggest(Restaurant.class, "name", "", null));
+  }
+
+  @Test
+  void test_update_moves_a_row_from_its_old_value_to_its_new_one() {
+    autocompleteService.index(vehicle(1L, "Tesla", "Model Y"));
+    autocompleteService.index(vehicle(2L, "Tesla", "Model S"));
+
+    assertEquals(List.of("Tesla"), autocompleteService.suggest(Vehicle.class, "brand", "t", null));
+    assertEquals(List.of("Model 3", "Model S", "Model Y"), autocompleteService.suggest(Vehicle.class, "model", "mo", null));
+  }
+
+  @Test
+  void test_delete_forgets_the_row() {
+    autocompleteService.remove(Vehicle.class, 3L);
+    autocompleteService.remove(Vehicle.class, 99L);
+
+    assertEquals(List.of("Toyota"), autocompleteService.suggest(Vehicle.class, "brand", "t", null));
+  }
+
+  @Test
+  void test_created_rows_are_added() {
+    autocompleteService.index(Book.builder().id(4L).title("Dune").author("Frank Herbert").date("1965").build());
+    autocompleteService.index(Restaurant.builder().id(5L).name("Freebirds").location("IV").build());
+
+    assertEquals(List.of("Frank Herbert"), autocompleteService.suggest(Book.class, "author", "fr", null));
+    assertEquals(List.of("Freebirds"), autocompleteService.suggest(Restaurant.class, "name", "fr", null));
+  }
+
+  @Test
+  void test_size_defaults_and_is_bounded() {
+    assertEquals(List.of("Toyota"), autocompleteService.suggest(Vehicle.class, "brand", "t", 1));
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> autocompleteService.suggest(Vehicle.class, "brand", "t", 51));
+    assertEquals("size must be between 1 and 50", e.getMessage());
+  }
+
+  @Test
+  void test_unknown_field_is_a_bad_request() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> autocompleteService.suggest(Vehicle.class, "licence", "l", null));
+    assertEquals("unknown field 'licence'; expected one of [brand, model]", e.getMessage());
+  }
+}
@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowResult;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+
+class BulkInsertServiceTests {
+
+  BookRepository bookRepository;
+  BulkInsertService bulkInsertService;
+
+  @BeforeEach
+  void setup() {
+    bookRepository = mock(BookRepository.class);
+    when(bookRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    bulkInsertService = new BulkInsertService();
+    bulkInsertService.chunkSize = 2;
+    bulkInsertService.maxRows = 5;
+  }
+
+  private static List<String> validate(Book book) {
+    return book.getTitle() == null ? List.of("title is required") : List.of();
+  }
+
+  private BulkResult<Book> createAll(List<Book> books) {
+    return bulkInsertService.createAll(books, BulkInsertServiceTests::validate, b -> b.setId(0), bookRepository);
+  }
+
+  private static Book book(long id, String title) {
+    return Book.builder().id(id).title(title).build();
+  }
+
+  @Test
+  void test_valid_rows_are_saved_in_chunks_with_ids_cleared() {
+    Book b1 = book(11L, "one");
+    Book b2 = book(12L, "two");
+    Book b3 = book(13L, "three");
+
+    BulkResult<Book> result = createAll(Arrays.asList(b1, b2, b3));
+
+    assertEquals(3, result.getCreated());
+    assertEquals(0, result.getRejected());
+    assertEquals(0, result.getFailed());
+    assertEquals(0L, b1.getId());
+    verify(bookRepository, times(1)).saveAll(eq(Arrays.asList(b1, b2)));
+    verify(bookRepository, times(1)).saveAll(eq(Arrays.asList(b3)));
+  }
+
+  @Test
+  void test_invalid_and_null_rows_are_rejected_but_do_not_stop_the_rest() {
+    Book good = book(0L, "good");
+
+    BulkResult<Book> result = createAll(Arrays.asList(book(0L, null), null, good));
+
+    assertEquals(1, result.getCreated());
+    assertEquals(2, result.getRejected());
+    List<BulkRowResult<Book>> rows = result.getRows();
+    assertEquals(List.of("title is required"), rows.get(0).getErrors());
+    assertEquals(List.of("row is required"), rows.get(1).getErrors());
+    assertEquals(BulkRowResult.CREATED, rows.get(2).getStatus());
+    assertEquals(2, rows.get(2).getIndex());
+    verify(bookRepository, times(1)).saveAll(eq(Arrays.asList(good)));
+  }
+
+  @Test
+  void test_failed_chunk_is_reported_and_later_chunks_still_run() {
+    Book b1 = book(0L, "one");
+    Book b2 = book(0L, "two");
+    Book b3 = book(0L, "three");
+    when(bookRepository.saveAll(eq(Arrays.asList(b1, b2))))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+    BulkResult<Book> result = createAll(Arrays.asList(b1, b2, b3));
+
+    assertEquals(1, result.getCreated());
+    assertEquals(2, result.getFailed());
+    assertEquals(BulkRowResult.FAILED, result.getRows().get(0).getStatus());
+    assertNull(result.getRows().get(0).getRow());
+    assertEquals(List.of("row conflicts with an existing row"), result.getRows().get(1).getErrors());
+    assertEquals(BulkRowResult.CREATED, result.getRows().get(2).getStatus());
+  }
+
+  @Test
+  void test_failed_chunk_does_not_return_the_drivers_sql() throws Exception {
+    Book b1 = book(0L, "one");
+    Book b2 = book(0L, "two");
+    when(bookRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("could not execute statement",
+        new SQLException("duplicate key value violates unique constraint \"books_pkey\"; SQL [insert into books (author, date, title, id) values (?, ?, ?, ?)]")));
+
+    BulkResult<Book> result = createAll(Arrays.asList(b1, b2));
+
+    String json = new ObjectMapper().writeValueAsString(result);
+    assertEquals(2, result.getFailed());
+    assertFalse(json.contains("insert into"));
+    assertFalse(json.contains("books_pkey"));
+    assertEquals(List.of("row conflicts with an existing row"), result.getRows().get(0).getErrors());
+  }
+
+  @Test
+  void test_other_database_failures_get_a_generic_message() {
+    when(bookRepository.saveAll(any())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+    BulkResult<Book> result = createAll(Arrays.asList(book(0L, "one")));
+
+    assertEquals(List.of("row could not be saved"), result.getRows().get(0).getErrors());
+  }
+
+  @Test
+  void test_empty_and_oversized_requests_are_bad_requests() {
+    assertThrows(BadRequestException.class, () -> createAll(null));
+    assertThrows(BadRequestException.class, () -> createAll(Collections.emptyList()));
+
+    List<Book> tooMany = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      tooMany.add(book(0L, "book" + i));
+    }
+    BadRequestException e = assertThrows(BadRequestException.class, () -> createAll(tooMany));
+    assertEquals("at most 5 rows may be created per request", e.getMessage());
+  }
+}
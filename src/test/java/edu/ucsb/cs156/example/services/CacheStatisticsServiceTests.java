@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+
+class CacheStatisticsServiceTests {
+
+  Statistics statistics;
+  UserCache userCache;
+  CacheStatisticsService cacheStatisticsService;
+
+  @BeforeEach
+  void setup() {
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    SessionFactory sessionFactory = mock(SessionFactory.class);
+    statistics = mock(Statistics.class);
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    cacheStatisticsService = new CacheStatisticsService();
+    cacheStatisticsService.entityManagerFactory = entityManagerFactory;
+    userCache = new UserCache();
+    cacheStatisticsService.userCache = userCache;
+  }
+
+  @Test
+  void test_stats_are_reported_per_region_and_for_queries() {
+    CacheRegionStatistics books = mock(CacheRegionStatistics.class);
+    when(books.getHitCount()).thenReturn(5L);
+    when(books.getMissCount()).thenReturn(2L);
+    when(books.getPutCount()).thenReturn(2L);
+    when(books.getElementCountInMemory()).thenReturn(2L);
+    when(statistics.isStatisticsEnabled()).thenReturn(true);
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "books" });
+    when(statistics.getCacheRegionStatistics("books")).thenReturn(books);
+    when(statistics.getQueryCacheHitCount()).thenReturn(7L);
+
+    Map<String, Map<String, Long>> stats = cacheStatisticsService.getStats();
+
+    assertEquals(Map.of("hits", 5L, "misses", 2L, "puts", 2L, "size", 2L), stats.get("books"));
+    assertEquals(Map.of("hits", 7L, "misses", 0L, "puts", 0L), stats.get("queries"));
+  }
+
+  @Test
+  void test_user_cache_counts_are_reported() {
+    userCache.put("a@example.org", User.builder().email("a@example.org").build());
+    userCache.get("a@example.org");
+    userCache.get("a@example.org");
+    userCache.get("b@example.org");
+
+    Map<String, Map<String, Long>> stats = cacheStatisticsService.getStats();
+
+    assertEquals(Map.of("size", 1L, "hits", 2L, "misses", 1L, "evictions", 0L), stats.get("userCache"));
+  }
+
+  @Test
+  void test_only_user_cache_when_collection_is_off_or_there_is_no_database() {
+    when(statistics.isStatisticsEnabled()).thenReturn(false);
+    assertEquals(Set.of("userCache"), cacheStatisticsService.getStats().keySet());
+
+    cacheStatisticsService.entityManagerFactory = null;
+    assertEquals(Set.of("userCache"), cacheStatisticsService.getStats().keySet());
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+
+class ChangeFeedServiceTests {
+
+  static final Instant NOW = Instant.parse("2022-05-01T10:00:00Z");
+
+  TombstoneRepository tombstoneRepository;
+  ChangeFeedService changeFeedService;
+
+  @BeforeEach
+  void setup() {
+    tombstoneRepository = mock(TombstoneRepository.class);
+    changeFeedService = new ChangeFeedService();
+    changeFeedService.tombstoneRepository = tombstoneRepository;
+    changeFeedService.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    changeFeedService.maxRows = 2;
+    changeFeedService.overlapSeconds = 5;
+    changeFeedService.retentionDays = 30;
+  }
+
+  private static Tombstone tombstone(String rowId) {
+    return Tombstone.builder().entityName("student").rowId(rowId).deletedAt(NOW).build();
+  }
+
+  @Test
+  void test_changes_are_upserts_and_tombstones_with_next_held_back_by_overlap() {
+    Instant since = NOW.minusSeconds(3600);
+    Student changed = Student.builder().id(7L).lastName("Davis").build();
+    when(tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(
+        eq("student"), eq(since), eq(PageRequest.of(0, 3)))).thenReturn(List.of(tombstone("9")));
+
+    ChangeSet<Student> changes = changeFeedService.changesSince(Student.class, since, (s, page) -> List.of(changed));
+
+    assertFalse(changes.getResync());
+    assertEquals(since, changes.getSince());
+    assertEquals(NOW.minusSeconds(5), changes.getNext());
+    assertEquals(List.of(changed), changes.getUpserts());
+    assertEquals(List.of("9"), changes.getDeletes());
+  }
+
+  @Test
+  void test_next_never_moves_behind_since() {
+    Instant since = NOW.minusSeconds(1);
+    when(tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(any(), any(), any()))
+        .thenReturn(List.of());
+
+    ChangeSet<Student> changes = changeFeedService.changesSince(Student.class, since, (s, page) -> List.of());
+
+    assertEquals(since, changes.getNext());
+  }
+
+  @Test
+  void test_too_many_changes_asks_for_resync() {
+    List<Student> many = new ArrayList<>(List.of(new Student(), new Student(), new Student()));
+    when(tombstoneRepository.findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(any(), any(), any()))
+        .thenReturn(List.of());
+
+    ChangeSet<Student> changes = changeFeedService.changesSince(Student.class, NOW.minusSeconds(60), (s, page) -> many);
+
+    assertTrue(changes.getResync());
+    assertNull(changes.getNext());
+    assertEquals(List.of(), changes.getUpserts());
+  }
+
+  @Test
+  void test_cursor_older_than_retention_asks_for_resync_without_querying() {
+    ChangeSet<Student> changes = changeFeedService.changesSince(Student.class, NOW.minusSeconds(31L * 24 * 3600),
+        (s, page) -> {
+          throw new AssertionError("rows should not be read");
+        });
+
+    assertTrue(changes.getResync());
+    verify(tombstoneRepository, never()).findByEntityNameAndDeletedAtAfterOrderByDeletedAtAsc(any(), any(), any());
+  }
+
+  @Test
+  void test_delete_writes_a_tombstone_only_when_a_row_was_deleted() {
+    assertEquals(1, changeFeedService.deleteRow(Student.class, 9L, () -> 1));
+    assertEquals(0, changeFeedService.deleteRow(Student.class, 10L, () -> 0));
+
+    verify(tombstoneRepository, times(1)).save(eq(tombstone("9")));
+    verify(tombstoneRepository, times(1)).deleteRowsDeletedBefore(eq(NOW.minusSeconds(30L * 24 * 3600)));
+  }
+}
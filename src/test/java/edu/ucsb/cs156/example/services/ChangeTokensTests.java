@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Movie;
+
+class ChangeTokensTests {
+
+  ChangeTokens changeTokens;
+
+  @BeforeEach
+  void setup() {
+    changeTokens = new ChangeTokens();
+  }
+
+  private static ServletWebRequest get(String header, String value) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/book/all");
+    if (header != null) {
+      request.addHeader(header, value);
+    }
+    return new ServletWebRequest(request, new MockHttpServletResponse());
+  }
+
+  @Test
+  void test_token_is_stable_until_a_write_is_recorded() {
+    String before = changeTokens.etag(Book.class);
+    assertEquals(before, changeTokens.etag(Book.class));
+    assertTrue(before.startsWith("\"books-"));
+
+    changeTokens.recordWrite(Book.class);
+
+    assertNotEquals(before, changeTokens.etag(Book.class));
+  }
+
+  @Test
+  void test_tables_have_independent_tokens() {
+    String movies = changeTokens.etag(Movie.class);
+
+    changeTokens.recordWrite(Book.class);
+
+    assertEquals(movies, changeTokens.etag(Movie.class));
+  }
+
+  @Test
+  void test_matching_if_none_match_is_not_modified() {
+    String etag = changeTokens.etag(Book.class);
+    ServletWebRequest request = get("If-None-Match", etag);
+
+    assertTrue(changeTokens.checkNotModified(Book.class, request));
+    assertEquals(304, request.getResponse().getStatus());
+  }
+
+  @Test
+  void test_stale_if_none_match_is_modified_and_gets_the_new_etag() {
+    String etag = changeTokens.etag(Book.class);
+    changeTokens.recordWrite(Book.class);
+    ServletWebRequest request = get("If-None-Match", etag);
+
+    assertFalse(changeTokens.checkNotModified(Book.class, request));
+    assertEquals(changeTokens.etag(Book.class), request.getResponse().getHeader("ETag"));
+    assertNull(request.getResponse().getHeader("Last-Modified"));
+  }
+
+  @Test
+  void test_if_modified_since_alone_is_never_not_modified() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/book/all");
+    request.addHeader("If-Modified-Since", System.currentTimeMillis() + 60_000);
+
+    assertFalse(changeTokens.checkNotModified(Book.class, new ServletWebRequest(request, new MockHttpServletResponse())));
+  }
+}
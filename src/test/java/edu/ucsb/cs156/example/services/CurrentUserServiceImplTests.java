@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class CurrentUserServiceImplTests {
+
+  static final String EMAIL = "cgaucho@ucsb.edu";
+
+  UserRepository userRepository;
+  UserCache userCache;
+  CurrentUserServiceImpl currentUserService;
+
+  @BeforeEach
+  void setup() {
+    userRepository = mock(UserRepository.class);
+    userCache = new UserCache();
+    currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userRepository", userRepository);
+    currentUserService.userCache = userCache;
+    currentUserService.adminRoleService = mock(AdminRoleService.class);
+
+    List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities,
+        Map.of("email", EMAIL, "sub", "1234", "email_verified", true), "email");
+    SecurityContextHolder.getContext().setAuthentication(new OAuth2AuthenticationToken(principal, authorities, "google"));
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void test_cached_user_is_returned_without_reading_the_repository() {
+    User cached = User.builder().id(7L).email(EMAIL).build();
+    userCache.put(EMAIL, cached);
+
+    assertSame(cached, currentUserService.getUser());
+
+    verify(userRepository, never()).findByEmail(any());
+    assertEquals(1, userCache.getHits());
+  }
+
+  @Test
+  void test_repository_is_read_once_and_later_calls_use_the_cache() {
+    User stored = User.builder().id(7L).email(EMAIL).admin(false).build();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(stored));
+
+    assertSame(stored, currentUserService.getUser());
+    assertSame(stored, currentUserService.getUser());
+
+    verify(userRepository, times(1)).findByEmail(EMAIL);
+    assertEquals(1, userCache.getMisses());
+    assertEquals(1, userCache.getHits());
+  }
+}
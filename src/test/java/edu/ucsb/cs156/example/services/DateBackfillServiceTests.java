@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.MovieRepository;
+
+class DateBackfillServiceTests {
+
+  BookRepository bookRepository;
+  MovieRepository movieRepository;
+  JdbcTemplate jdbcTemplate;
+  DateBackfillService dateBackfillService;
+
+  @BeforeEach
+  void setup() {
+    bookRepository = mock(BookRepository.class);
+    movieRepository = mock(MovieRepository.class);
+    jdbcTemplate = mock(JdbcTemplate.class);
+    dateBackfillService = new DateBackfillService();
+    dateBackfillService.bookRepository = bookRepository;
+    dateBackfillService.movieRepository = movieRepository;
+    dateBackfillService.jdbcTemplate = jdbcTemplate;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Object[]> batchFor(String update) {
+    ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate, times(1)).batchUpdate(eq(update), batch.capture());
+    return batch.getValue();
+  }
+
+  @Test
+  void test_parseable_dates_are_filled_and_others_left_alone() {
+    PageRequest chunk = PageRequest.of(0, DateBackfillService.CHUNK_SIZE);
+    when(bookRepository.findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc(0L, chunk))
+        .thenReturn(List.of(
+            Book.builder().id(3L).date("2021").build(),
+            Book.builder().id(8L).date("someday").build()));
+    when(movieRepository.findByIdGreaterThanAndReleasedOnIsNullAndReleaseDateIsNotNullOrderByIdAsc(0L, chunk))
+        .thenReturn(List.of(Movie.builder().id(5L).releaseDate("2009-12-18").build()));
+
+    dateBackfillService.backfill();
+
+    // one batch per chunk, holding only the rows whose text is a date
+    List<Object[]> books = batchFor("update books set published_on = ? where id = ?");
+    assertEquals(1, books.size());
+    assertArrayEquals(new Object[] { LocalDate.of(2021, 1, 1), 3L }, books.get(0));
+    List<Object[]> movies = batchFor("update movie set released_on = ? where id = ?");
+    assertEquals(1, movies.size());
+    assertArrayEquals(new Object[] { LocalDate.of(2009, 12, 18), 5L }, movies.get(0));
+    // a short chunk is the last one
+    verify(bookRepository, times(1)).findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc(anyLong(), any());
+  }
+
+  @Test
+  void test_full_chunks_continue_after_the_last_id() {
+    List<Book> full = new ArrayList<>();
+    LongStream.rangeClosed(1, DateBackfillService.CHUNK_SIZE)
+        .forEach(id -> full.add(Book.builder().id(id).date("not a date").build()));
+    PageRequest chunk = PageRequest.of(0, DateBackfillService.CHUNK_SIZE);
+    when(bookRepository.findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc(0L, chunk)).thenReturn(full);
+    when(bookRepository.findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc(
+        (long) DateBackfillService.CHUNK_SIZE, chunk)).thenReturn(List.of(Book.builder().id(900L).date("1999-05").build()));
+
+    int filled = dateBackfillService.backfill(
+        bookRepository::findByIdGreaterThanAndPublishedOnIsNullAndDateIsNotNullOrderByIdAsc,
+        Book::getId, Book::getDate, "update books set published_on = ? where id = ?");
+
+    assertEquals(1, filled);
+    // the first chunk had no dates, so only the second one is written
+    List<Object[]> books = batchFor("update books set published_on = ? where id = ?");
+    assertArrayEquals(new Object[] { LocalDate.of(1999, 5, 1), 900L }, books.get(0));
+  }
+
+  @Test
+  void test_nothing_unfilled_writes_nothing() {
+    dateBackfillService.backfill();
+
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+  }
+}
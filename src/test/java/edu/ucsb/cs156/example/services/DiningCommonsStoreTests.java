@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class DiningCommonsStoreTests {
+
+  ObjectMapper mapper = new ObjectMapper();
+  UCSBDiningCommonsRepository repository;
+  DiningCommonsStore store;
+
+  UCSBDiningCommons carrillo = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+  UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+
+  @BeforeEach
+  void setup() {
+    repository = mock(UCSBDiningCommonsRepository.class);
+    store = new DiningCommonsStore();
+    store.ucsbDiningCommonsRepository = repository;
+    store.mapper = mapper;
+  }
+
+  @Test
+  void test_first_read_loads_once_and_serves_prerendered_json() throws Exception {
+    when(repository.findAll()).thenReturn(Arrays.asList(carrillo, ortega));
+
+    byte[] all = store.getAllJson();
+
+    assertArrayEquals(mapper.writeValueAsBytes(Arrays.asList(carrillo, ortega)), all);
+    assertSame(all, store.getAllJson());
+    assertArrayEquals(mapper.writeValueAsBytes(ortega), store.getJson("ortega").get());
+    assertFalse(store.getJson("munger-hall").isPresent());
+    assertEquals(carrillo, store.get("carrillo").get());
+    assertEquals(List.of(carrillo, ortega), store.getAll());
+    verify(repository, times(1)).findAll();
+  }
+
+  @Test
+  void test_refresh_swaps_in_new_snapshot() throws Exception {
+    when(repository.findAll()).thenReturn(Arrays.asList(carrillo));
+    store.refresh();
+    assertFalse(store.getJson("ortega").isPresent());
+
+    when(repository.findAll()).thenReturn(Arrays.asList(carrillo, ortega));
+    store.refresh();
+
+    assertArrayEquals(mapper.writeValueAsBytes(ortega), store.getJson("ortega").get());
+    assertArrayEquals(mapper.writeValueAsBytes(Arrays.asList(carrillo, ortega)), store.getAllJson());
+    verify(repository, times(2)).findAll();
+  }
+
+  @Test
+  void test_nearest_uses_commons_with_coordinates_from_the_snapshot() {
+    UCSBDiningCommons portola = UCSBDiningCommons.builder().code("portola").name("Portola")
+        .latitude(34.417723).longitude(-119.867427).build();
+    UCSBDiningCommons dlg = UCSBDiningCommons.builder().code("de-la-guerra").name("De La Guerra")
+        .latitude(34.409811).longitude(-119.845026).build();
+    when(repository.findAll()).thenReturn(Arrays.asList(carrillo, portola, dlg));
+
+    List<GeoIndex.Hit<UCSBDiningCommons>> hits = store.nearest(34.4105, -119.846, 5, null);
+
+    assertEquals(List.of(dlg, portola), hits.stream().map(GeoIndex.Hit::item).toList());
+  }
+}
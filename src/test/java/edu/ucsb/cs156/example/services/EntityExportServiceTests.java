@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Book;
+
+class EntityExportServiceTests {
+
+  ObjectMapper mapper = new ObjectMapper();
+  EntityExportService entityExportService;
+
+  @BeforeEach
+  void setup() {
+    entityExportService = new EntityExportService();
+    entityExportService.mapper = mapper;
+    entityExportService.flushEvery = 2;
+  }
+
+  @Test
+  void test_writeNdjson_writes_one_line_per_row() throws IOException {
+    Book b1 = Book.builder().id(1L).title("One").author("A").build();
+    Book b2 = Book.builder().id(2L).title("Two").author("B").build();
+    Book b3 = Book.builder().id(3L).title("Three").author("C").build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = entityExportService.writeNdjson(Stream.of(b1, b2, b3), out);
+
+    assertEquals(3, count);
+    String expected = mapper.writeValueAsString(b1) + "\n"
+        + mapper.writeValueAsString(b2) + "\n"
+        + mapper.writeValueAsString(b3) + "\n";
+    assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_writeNdjson_empty_stream_writes_nothing() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(0, entityExportService.writeNdjson(Stream.empty(), out));
+    assertEquals("", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_writeNdjson_does_not_close_output_stream() throws IOException {
+    AtomicBoolean closed = new AtomicBoolean(false);
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+
+    entityExportService.writeNdjson(Stream.of(Book.builder().id(1L).build()), out);
+
+    assertFalse(closed.get());
+  }
+
+  @Test
+  void test_writeJsonArray_matches_serializing_the_whole_list() throws IOException {
+    Book b1 = Book.builder().id(1L).title("One").author("A").build();
+    Book b2 = Book.builder().id(2L).title("Two").author("B").build();
+    Book b3 = Book.builder().id(3L).title("Three").author("C").build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = entityExportService.writeJsonArray(Stream.of(b1, b2, b3), out);
+
+    assertEquals(3, count);
+    assertEquals(mapper.writeValueAsString(List.of(b1, b2, b3)), out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_writeJsonArray_empty_stream_writes_empty_array() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(0, entityExportService.writeJsonArray(Stream.empty(), out));
+    assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_writeJsonArray_writes_non_entity_rows() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    entityExportService.writeJsonArray(Stream.of(Map.of("id", 1L)), out);
+
+    assertEquals("[{\"id\":1}]", out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void test_flushEvery_zero_flushes_only_at_the_end() throws IOException {
+    entityExportService.flushEvery = 0;
+    Book b1 = Book.builder().id(1L).title("One").author("A").build();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(1, entityExportService.writeNdjson(Stream.of(b1), out));
+    assertEquals(mapper.writeValueAsString(b1) + "\n", out.toString(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+
+class FieldProjectionServiceTests {
+
+  static final Set<String> ALLOWED = Set.of("id", "email", "givenName", "admin");
+
+  @Test
+  void test_fields_keep_request_order_without_blanks_or_repeats() {
+    assertEquals(List.of("email", "id", "admin"),
+        FieldProjectionService.parseFields(" email,id,,email , admin", ALLOWED));
+  }
+
+  @Test
+  void test_unknown_field_is_a_bad_request() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> FieldProjectionService.parseFields("id,googleSub", ALLOWED));
+    assertEquals("unknown field 'googleSub'; expected some of [admin, email, givenName, id]", e.getMessage());
+  }
+
+  @Test
+  void test_empty_field_list_is_a_bad_request() {
+    BadRequestException e = assertThrows(BadRequestException.class,
+        () -> FieldProjectionService.parseFields(" , ", ALLOWED));
+    assertEquals("fields must name at least one of [admin, email, givenName, id]", e.getMessage());
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GeoIndexTests {
+
+  record Place(String name, Double lat, Double lon) {
+  }
+
+  static final Place CARRILLO = new Place("carrillo", 34.409953, -119.85277);
+  static final Place DLG = new Place("de-la-guerra", 34.409811, -119.845026);
+  static final Place ORTEGA = new Place("ortega", 34.410987, -119.847303);
+  static final Place PORTOLA = new Place("portola", 34.417723, -119.867427);
+  static final Place UNMAPPED = new Place("unmapped", null, null);
+
+  GeoIndex<Place> index = new GeoIndex<>(List.of(PORTOLA, UNMAPPED, CARRILLO, ORTEGA, DLG), Place::lat, Place::lon);
+
+  private static List<String> names(List<GeoIndex.Hit<Place>> hits) {
+    return hits.stream().map(hit -> hit.item().name()).toList();
+  }
+
+  @Test
+  void test_nearest_k_closest_first_with_haversine_distance() {
+    List<GeoIndex.Hit<Place>> hits = index.nearest(34.4105, -119.846, 2, null);
+
+    assertEquals(List.of("de-la-guerra", "ortega"), names(hits));
+    assertEquals(GeoIndex.haversine(34.4105, -119.846, DLG.lat(), DLG.lon()), hits.get(0).metres(), 1e-9);
+    assertEquals(118, hits.get(0).metres(), 1);
+  }
+
+  @Test
+  void test_rows_without_coordinates_are_left_out() {
+    assertEquals(4, index.size());
+    assertEquals(List.of("de-la-guerra", "ortega", "carrillo", "portola"), names(index.nearest(34.4105, -119.846, 10, null)));
+  }
+
+  @Test
+  void test_radius_limits_results() {
+    assertEquals(List.of("de-la-guerra", "ortega", "carrillo"), names(index.nearest(34.4105, -119.846, 10, 1000.0)));
+    assertEquals(List.of(), names(index.nearest(34.4105, -119.846, 10, 50.0)));
+    assertEquals(List.of(), index.nearest(34.4105, -119.846, 0, null));
+  }
+
+  @Test
+  void test_nearest_across_the_antimeridian() {
+    Place west = new Place("west", 0.0, -179.999);
+    Place east = new Place("east", 0.0, 170.0);
+    GeoIndex<Place> wrapped = new GeoIndex<>(List.of(east, west), Place::lat, Place::lon);
+
+    assertEquals(List.of("west"), names(wrapped.nearest(0, 179.999, 1, null)));
+    assertEquals(222, wrapped.nearest(0, 179.999, 1, null).get(0).metres(), 1);
+  }
+
+  @Test
+  void test_matches_a_full_scan() {
+    Random random = new Random(42);
+    List<Place> places = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      places.add(new Place("p" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+    }
+    GeoIndex<Place> big = new GeoIndex<>(places, Place::lat, Place::lon);
+    for (int q = 0; q < 100; q++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      Double radius = q % 2 == 0 ? null : 1_500_000.0;
+      List<String> expected = places.stream()
+          .filter(p -> radius == null || GeoIndex.haversine(lat, lon, p.lat(), p.lon()) < radius)
+          .sorted(Comparator.comparingDouble(p -> GeoIndex.haversine(lat, lon, p.lat(), p.lon())))
+          .limit(5)
+          .map(Place::name)
+          .toList();
+      assertEquals(expected, names(big.nearest(lat, lon, 5, radius)));
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTests {
+
+  @Test
+  void test_empty_histogram_reports_zero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.percentile(99));
+  }
+
+  @Test
+  void test_small_values_are_exact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long v = 1; v <= 20; v++) {
+      histogram.record(v);
+    }
+    assertEquals(20, histogram.getCount());
+    assertEquals(210, histogram.getTotal());
+    assertEquals(10, histogram.percentile(50));
+    assertEquals(19, histogram.percentile(95));
+    assertEquals(20, histogram.percentile(99));
+    assertEquals(20, histogram.getMax());
+  }
+
+  @Test
+  void test_large_values_are_within_bucket_precision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long v = 1; v <= 100_000; v++) {
+      histogram.record(v);
+    }
+    long p50 = histogram.percentile(50);
+    long p99 = histogram.percentile(99);
+    assertTrue(p50 >= 50_000 && p50 <= 50_000 * 1.04, "p50 was " + p50);
+    assertTrue(p99 >= 99_000 && p99 <= 100_000, "p99 was " + p99);
+    assertEquals(100_000, histogram.percentile(100));
+  }
+
+  @Test
+  void test_negative_and_huge_values_are_clamped() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(0, histogram.percentile(50));
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.percentile(100));
+  }
+
+  @Test
+  void test_bucket_bounds_are_contiguous() {
+    for (int i = 1; i < LatencyHistogram.BUCKETS; i++) {
+      long lowest = LatencyHistogram.highestValueIn(i - 1) + 1;
+      assertEquals(i, LatencyHistogram.indexOf(lowest));
+      assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.highestValueIn(i)));
+    }
+  }
+}
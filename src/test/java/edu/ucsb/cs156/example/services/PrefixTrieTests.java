@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTests {
+
+  PrefixTrie trie;
+
+  @BeforeEach
+  void setup() {
+    trie = new PrefixTrie();
+    for (String brand : List.of("Toyota", "toyota", "Tesla", "Honda", "Tata", "Hyundai", "Honda", "Tesla", " Toyota ")) {
+      trie.add(brand);
+    }
+  }
+
+  @Test
+  void test_most_common_first_then_alphabetical() {
+    assertEquals(List.of("Toyota", "Tesla", "Tata"), trie.suggest("t", 10));
+    assertEquals(List.of("Honda", "Hyundai"), trie.suggest("h", 10));
+  }
+
+  @Test
+  void test_prefix_is_case_insensitive_and_value_keeps_first_spelling() {
+    assertEquals(List.of("Toyota"), trie.suggest("TO", 10));
+    assertEquals(3, trie.count("TOYOTA"));
+  }
+
+  @Test
+  void test_limit_and_empty_prefix() {
+    assertEquals(List.of("Toyota", "Honda"), trie.suggest("", 2));
+    assertEquals(List.of("Toyota"), trie.suggest(null, 1));
+    assertEquals(List.of(), trie.suggest("t", 0));
+    assertEquals(List.of(), trie.suggest("x", 10));
+  }
+
+  @Test
+  void test_remove_lowers_rank_and_drops_values_no_row_holds() {
+    trie.remove("toyota");
+    trie.remove("Toyota");
+    assertEquals(List.of("Tesla", "Tata", "Toyota"), trie.suggest("t", 10));
+
+    trie.remove("TOYOTA");
+    trie.remove("Toyota");
+    trie.remove("Volvo");
+    trie.remove(null);
+    assertEquals(List.of("Tesla", "Tata"), trie.suggest("t", 10));
+    assertEquals(0, trie.count("toyota"));
+  }
+
+  @Test
+  void test_blank_values_are_ignored() {
+    int nodes = trie.nodeCount();
+    trie.add(null);
+    trie.add("  ");
+    assertEquals(nodes, trie.nodeCount());
+  }
+
+  @Test
+  void test_values_are_interned() {
+    trie.add(new String("Volvo"));
+    assertSame("Volvo", trie.suggest("v", 1).get(0));
+  }
+}
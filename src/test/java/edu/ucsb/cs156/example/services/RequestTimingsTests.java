@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.RouteTiming;
+
+class RequestTimingsTests {
+
+  @Test
+  void test_timings_are_kept_per_route_in_milliseconds() {
+    RequestTimings requestTimings = new RequestTimings();
+    requestTimings.record("GET /api/books/all", TimeUnit.MILLISECONDS.toNanos(2));
+    requestTimings.record("GET /api/books/all", TimeUnit.MILLISECONDS.toNanos(4));
+    requestTimings.record("DELETE /api/books", TimeUnit.MICROSECONDS.toNanos(10));
+
+    List<RouteTiming> timings = requestTimings.getTimings();
+
+    assertEquals(2, timings.size());
+    assertEquals("DELETE /api/books", timings.get(0).getRoute());
+    assertEquals(0.01, timings.get(0).getP99Millis());
+    RouteTiming books = timings.get(1);
+    assertEquals("GET /api/books/all", books.getRoute());
+    assertEquals(2, books.getCount());
+    assertEquals(3.0, books.getMeanMillis());
+    assertEquals(4.0, books.getMaxMillis());
+    assertTrue(books.getP50Millis() >= 2.0 && books.getP50Millis() < 2.1);
+  }
+
+  @Test
+  void test_reset_clears_all_routes() {
+    RequestTimings requestTimings = new RequestTimings();
+    requestTimings.record("GET /api/books/all", 1000);
+    requestTimings.reset();
+    assertTrue(requestTimings.getTimings().isEmpty());
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTests {
+
+  SearchIndex index;
+
+  @BeforeEach
+  void setup() {
+    index = new SearchIndex(2.0, 1.0);
+    index.put(1, "Harry Potter and the Philosopher's Stone", "J. K. Rowling");
+    index.put(2, "The Potter's Field", "Ellis Peters");
+    index.put(3, "Dune", "Frank Herbert");
+    index.put(4, "Stone Soup", "Marcia Brown");
+  }
+
+  private List<Long> ids(String query) {
+    return index.search(query, 10).stream().map(SearchIndex.Hit::id).toList();
+  }
+
+  @Test
+  void test_exact_word_matches_in_any_field() {
+    assertEquals(List.of(3L), ids("dune"));
+    assertEquals(List.of(3L), ids("HERBERT"));
+  }
+
+  @Test
+  void test_prefix_matches_longer_words() {
+    // the match in the shorter title ranks first
+    assertEquals(List.of(2L, 1L), ids("pott"));
+  }
+
+  @Test
+  void test_near_misspellings_match_when_nothing_else_does() {
+    assertEquals(List.of(1L), ids("hary"));
+    assertEquals(List.of(1L), ids("rowlnig"));
+    assertEquals(List.of(), ids("xyz"));
+  }
+
+  @Test
+  void test_rows_matching_more_words_rank_first() {
+    assertEquals(List.of(1L, 4L), ids("stone harry").subList(0, 2));
+  }
+
+  @Test
+  void test_title_match_outranks_person_match() {
+    index.put(5, "Frank", "Somebody");
+    assertEquals(List.of(5L, 3L), ids("frank"));
+  }
+
+  @Test
+  void test_exact_match_outranks_prefix_match() {
+    index.put(5, "Pot Luck", "Anon");
+    List<SearchIndex.Hit> hits = index.search("pot", 10);
+    assertEquals(5L, hits.get(0).id());
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+  }
+
+  @Test
+  void test_accents_and_case_are_folded() {
+    index.put(5, "Caf\u00e9 Society", "\u00c9mile Zola");
+    assertEquals(List.of(5L), ids("cafe emile"));
+  }
+
+  @Test
+  void test_put_replaces_and_remove_forgets_a_row() {
+    index.put(3, "Foundation", "Isaac Asimov");
+    assertEquals(List.of(), ids("dune"));
+    assertEquals(List.of(3L), ids("foundation"));
+
+    index.remove(3);
+    index.remove(99);
+    assertEquals(List.of(), ids("foundation"));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  void test_limit_and_blank_queries() {
+    assertEquals(1, index.search("pott", 1).size());
+    assertEquals(List.of(), ids("  "));
+    assertEquals(List.of(), index.search("dune", 0));
+  }
+
+  @Test
+  void test_put_needs_one_text_per_field() {
+    assertThrows(IllegalArgumentException.class, () -> index.put(9, "only a title"));
+  }
+
+  @Test
+  void test_edit_distance() {
+    assertEquals(0, SearchIndex.editDistance("potter", "potter", 2));
+    assertEquals(1, SearchIndex.editDistance("poter", "potter", 2));
+    assertEquals(1, SearchIndex.editDistance("ptoter", "potter", 2));
+    assertEquals(2, SearchIndex.editDistance("pottre", "pother", 2));
+    assertEquals(3, SearchIndex.editDistance("abcdef", "uvwxyz", 2));
+  }
+
+  @Test
+  void test_tokenize() {
+    assertEquals(List.of("the", "potter", "s", "field", "2"), SearchIndex.tokenize("The Potter's  Field (2)"));
+    assertEquals(List.of(), SearchIndex.tokenize(null));
+  }
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Movie;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.MovieRepository;
+
+class SearchServiceTests {
+
+  BookRepository bookRepository;
+  MovieRepository movieRepository;
+  SearchService searchService;
+
+  Book potter = Book.builder().id(1L).title("Harry Potter").author("Rowling").date("1997").build();
+  Book field = Book.builder().id(2L).title("The Potter's Field").author("Peters").date("1989").build();
+  Movie avatar = Movie.builder().id(5L).movieName("Avatar").directorName("James Cameron").releaseDate("2009-12-18").build();
+
+  @BeforeEach
+  void setup() {
+    bookRepository = mock(BookRepository.class);
+    movieRepository = mock(MovieRepository.class);
+    searchService = new SearchService();
+    searchService.bookRepository = bookRepository;
+    searchService.movieRepository = movieRepository;
+    when(bookRepository.findAll()).thenReturn(List.of(potter, field));
+    when(movieRepository.findAll()).thenReturn(List.of(avatar));
+    searchService.rebuild();
+  }
+
+  @Test
+  void test_results_keep_ranked_order_and_skip_rows_gone_from_the_table() {
+    // the repository returns rows in its own order, and row 2 has been deleted
+    when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(potter));
+
+    assertEquals(List.of(potter), searchService.searchBooks("harry potter", 10));
+  }
+
+  @Test
+  void test_no_hits_does_not_query_the_table() {
+    assertEquals(List.of(), searchService.searchBooks("dune", 10));
+    verify(bookRepository, never()).findAllById(any());
+  }
+
+  @Test
+  void test_writes_update_the_index() {
+    Movie titanic = Movie.builder().id(6L).movieName("Titanic").directorName("James Cameron").releaseDate("1997-12-19").build();
+    searchService.index(titanic);
+    when(movieRepository.findAllById(List.of(6L))).thenReturn(List.of(titanic));
+    assertEquals(List.of(titanic), searchService.searchMovies("titanic", 10));
+
+    searchService.removeMovie(6L);
+    assertEquals(List.of(), searchService.searchMovies("titanic", 10));
+
+    searchService.removeBook(1L);
+    Book dune = Book.builder().id(1L).title("Dune").author("Herbert").date("1965").build();
+    searchService.index(dune);
+    when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(dune));
+    assertEquals(List.of(dune), searchService.searchBooks("dune", 10));
+  }
+}
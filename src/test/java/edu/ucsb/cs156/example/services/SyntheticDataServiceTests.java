@@ -0,0 +1,225 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import edu.ucsb.cs156.example.entities.Book;
+import edu.ucsb.cs156.example.entities.Student;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.Vehicle;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.GenerationReport;
+import edu.ucsb.cs156.example.repositories.BookRepository;
+import edu.ucsb.cs156.example.repositories.StudentRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.VehicleRepository;
+
+class SyntheticDataServiceTests {
+
+  StudentRepository studentRepository;
+  VehicleRepository vehicleRepository;
+  BookRepository bookRepository;
+  SearchService searchService;
+  AutocompleteService autocompleteService;
+  UCSBDateRepository ucsbDateRepository;
+  UpcomingDatesService upcomingDatesService;
+  SyntheticDataService syntheticDataService;
+  List<Student> savedStudents;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setup() {
+    studentRepository = mock(StudentRepository.class);
+    vehicleRepository = mock(VehicleRepository.class);
+    savedStudents = Collections.synchronizedList(new ArrayList<>());
+    when(studentRepository.saveAll(any())).thenAnswer(invocation -> {
+      savedStudents.addAll((List<Student>) invocation.getArgument(0));
+      return invocation.getArgument(0);
+    });
+    when(vehicleRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    bookRepository = mock(BookRepository.class);
+    searchService = new SearchService();
+    searchService.bookRepository = bookRepository;
+    autocompleteService = new AutocompleteService();
+    ucsbDateRepository = mock(UCSBDateRepository.class);
+    upcomingDatesService = new UpcomingDatesService();
+    upcomingDatesService.ucsbDateRepository = ucsbDateRepository;
+    syntheticDataService = new SyntheticDataService();
+    syntheticDataService.studentRepository = studentRepository;
+    syntheticDataService.vehicleRepository = vehicleRepository;
+    syntheticDataService.bookRepository = bookRepository;
+    syntheticDataService.searchService = searchService;
+    syntheticDataService.autocompleteService = autocompleteService;
+    syntheticDataService.ucsbDateRepository = ucsbDateRepository;
+    syntheticDataService.upcomingDatesService = upcomingDatesService;
+    syntheticDataService.chunkSize = 10;
+    syntheticDataService.threads = 3;
+    syntheticDataService.maxRows = 1000;
+  }
+
+  @Test
+  void test_rows_are_saved_in_chunks_and_reported() {
+    List<GenerationReport> reports = syntheticDataService.generate(List.of("student", "vehicle"), 0, 25, 42);
+
+    assertEquals(2, reports.size());
+    assertEquals("student", reports.get(0).getEntity());
+    assertEquals(25, reports.get(0).getInserted());
+    assertEquals(0, reports.get(0).getFailed());
+    assertNull(reports.get(0).getFirstError());
+    assertEquals(25, reports.get(1).getInserted());
+    verify(studentRepository, times(3)).saveAll(any());
+    verify(vehicleRepository, times(3)).saveAll(any());
+  }
+
+  @Test
+  void test_unique_columns_differ_for_every_row() {
+    syntheticDataService.generate(List.of("student"), 0, 100, 7);
+    syntheticDataService.generate(List.of("student"), 0, 100, 8);
+
+    Set<String> perms = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    for (Student student : savedStudents) {
+      perms.add(student.getPerm());
+      emails.add(student.getEmail());
+    }
+    assertEquals(200, perms.size());
+    assertEquals(200, emails.size());
+  }
+
+  @Test
+  void test_rows_depend_only_on_seed_and_index() {
+    assertEquals(SyntheticDataService.student(42, 5, SyntheticDataService.random(42, 5)),
+        SyntheticDataService.student(42, 5, SyntheticDataService.random(42, 5)));
+    assertEquals(SyntheticDataService.ucsbDate(42, 5, SyntheticDataService.random(42, 5)),
+        SyntheticDataService.ucsbDate(42, 5, SyntheticDataService.random(42, 5)));
+    assertNotEquals(SyntheticDataService.vehicle(42, 5, SyntheticDataService.random(42, 5)),
+        SyntheticDataService.vehicle(42, 6, SyntheticDataService.random(42, 6)));
+  }
+
+  @Test
+  void test_failed_chunks_are_counted() {
+    doAnswer(invocation -> invocation.getArgument(0))
+        .doThrow(new DataIntegrityViolationException("duplicate perm"))
+        .doAnswer(invocation -> invocation.getArgument(0))
+        .when(studentRepository).saveAll(any());
+    syntheticDataService.threads = 1;
+
+    GenerationReport report = syntheticDataService.generate(List.of("student"), 0, 30, 1).get(0);
+
+    assertEquals(20, report.getInserted());
+    assertEquals(10, report.getFailed());
+    assertEquals("duplicate perm", report.getFirstError());
+  }
+
+  @Test
+  void test_bad_requests() {
+    assertThrows(BadRequestException.class, () -> syntheticDataService.generate(List.of(), 0, 10, 1));
+    assertThrows(BadRequestException.class, () -> syntheticDataService.generate(List.of("dragons"), 0, 10, 1));
+    assertThrows(BadRequestException.class, () -> syntheticDataService.generate(List.of("book"), 0, 0, 1));
+    assertThrows(BadRequestException.class, () -> syntheticDataService.generate(List.of("book"), 0, 1001, 1));
+    assertThrows(BadRequestException.class, () -> syntheticDataService.generate(List.of("book"), -1, 10, 1));
+  }
+
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_generated_books_are_searchable_without_a_restart() {
+    Map<Long, Book> stored = new ConcurrentHashMap<>();
+    AtomicLong ids = new AtomicLong();
+    when(bookRepository.saveAll(any())).thenAnswer(invocation -> {
+      List<Book> books = (List<Book>) invocation.getArgument(0);
+      books.forEach(book -> {
+        book.setId(ids.incrementAndGet());
+        stored.put(book.getId(), book);
+      });
+      return books;
+    });
+    when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+      List<Book> found = new ArrayList<>();
+      ((Iterable<Long>) invocation.getArgument(0)).forEach(id -> found.add(stored.get(id)));
+      return found;
+    });
+    Book first = SyntheticDataService.book(3, 0, SyntheticDataService.random(3, 0));
+
+    syntheticDataService.generate(List.of("book"), 0, 25, 3);
+
+    List<Book> hits = searchService.searchBooks(first.getTitle() + " " + first.getAuthor(), 25);
+    assertTrue(hits.stream().anyMatch(book -> book.getTitle().equals(first.getTitle())
+        && book.getAuthor().equals(first.getAuthor())));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_generated_rows_are_suggested_without_a_restart() {
+    AtomicLong ids = new AtomicLong();
+    doAnswer(invocation -> {
+      List<Vehicle> vehicles = (List<Vehicle>) invocation.getArgument(0);
+      vehicles.forEach(row -> row.setId(ids.incrementAndGet()));
+      return vehicles;
+    }).when(vehicleRepository).saveAll(any());
+    doAnswer(invocation -> {
+      List<Student> students = (List<Student>) invocation.getArgument(0);
+      students.forEach(row -> row.setId(ids.incrementAndGet()));
+      return students;
+    }).when(studentRepository).saveAll(any());
+    Vehicle vehicle = SyntheticDataService.vehicle(5, 0, SyntheticDataService.random(5, 0));
+    Student student = SyntheticDataService.student(5, 0, SyntheticDataService.random(5, 0));
+
+    syntheticDataService.generate(List.of("vehicle", "student"), 0, 25, 5);
+
+    assertTrue(autocompleteService.suggest(Vehicle.class, "brand", vehicle.getBrand(), 50).contains(vehicle.getBrand()));
+    assertTrue(autocompleteService.suggest(Student.class, "lastName", student.getLastName(), 50)
+        .contains(student.getLastName()));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_generated_future_dates_are_upcoming_without_a_restart() {
+    LocalDateTime now = LocalDateTime.of(2012, 1, 1, 0, 0);
+    upcomingDatesService.clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+    AtomicLong ids = new AtomicLong();
+    doAnswer(invocation -> {
+      List<UCSBDate> dates = (List<UCSBDate>) invocation.getArgument(0);
+      dates.forEach(row -> row.setId(ids.incrementAndGet()));
+      return dates;
+    }).when(ucsbDateRepository).saveAll(any());
+    long future = 0;
+    for (long i = 0; i < 25; i++) {
+      if (!SyntheticDataService.ucsbDate(9, i, SyntheticDataService.random(9, i)).getLocalDateTime().isBefore(now)) {
+        future++;
+      }
+    }
+
+    syntheticDataService.generate(List.of("ucsbdate"), 0, 25, 9);
+
+    assertTrue(future > 0);
+    assertEquals(future, upcomingDatesService.size());
+    assertEquals(future, upcomingDatesService.upcoming(25).size());
+  }
+}
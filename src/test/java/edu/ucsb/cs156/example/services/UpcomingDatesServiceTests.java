@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+
+class UpcomingDatesServiceTests {
+
+  static final LocalDateTime NOW = LocalDateTime.parse("2022-04-01T12:00:00");
+
+  UCSBDateRepository ucsbDateRepository;
+  UpcomingDatesService upcomingDatesService;
+
+  @BeforeEach
+  void setup() {
+    ucsbDateRepository = mock(UCSBDateRepository.class);
+    upcomingDatesService = new UpcomingDatesService();
+    upcomingDatesService.ucsbDateRepository = ucsbDateRepository;
+    upcomingDatesService.clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+  }
+
+  static UCSBDate date(long id, String localDateTime) {
+    return UCSBDate.builder().id(id).quarterYYYYQ("20222").name("date" + id)
+        .localDateTime(LocalDateTime.parse(localDateTime)).build();
+  }
+
+  static List<Long> ids(List<UCSBDate> dates) {
+    return dates.stream().map(UCSBDate::getId).toList();
+  }
+
+  @Test
+  void test_rebuild_loads_dates_from_now_and_returns_them_soonest_first() {
+    when(ucsbDateRepository.findByLocalDateTimeGreaterThanEqual(NOW)).thenReturn(new ArrayList<>(List.of(
+        date(1L, "2022-06-01T00:00:00"),
+        date(2L, "2022-04-01T12:00:00"),
+        date(3L, "2022-05-01T00:00:00"),
+        date(4L, "2022-05-01T00:00:00"))));
+
+    upcomingDatesService.rebuild();
+
+    assertEquals(4, upcomingDatesService.size());
+    assertEquals(List.of(2L, 3L, 4L, 1L), ids(upcomingDatesService.upcoming(10)));
+    assertEquals(List.of(2L, 3L), ids(upcomingDatesService.upcoming(2)));
+  }
+
+  @Test
+  void test_index_moves_updated_dates_and_remove_drops_them() {
+    upcomingDatesService.index(date(1L, "2022-06-01T00:00:00"));
+    upcomingDatesService.index(date(2L, "2022-07-01T00:00:00"));
+    assertEquals(List.of(1L, 2L), ids(upcomingDatesService.upcoming(10)));
+
+    upcomingDatesService.index(date(1L, "2022-08-01T00:00:00"));
+    assertEquals(List.of(2L, 1L), ids(upcomingDatesService.upcoming(10)));
+
+    upcomingDatesService.remove(2L);
+    upcomingDatesService.remove(99L);
+    assertEquals(List.of(1L), ids(upcomingDatesService.upcoming(10)));
+  }
+
+  @Test
+  void test_dates_that_have_passed_are_not_kept() {
+    upcomingDatesService.index(date(1L, "2022-06-01T00:00:00"));
+    upcomingDatesService.index(date(2L, "2022-03-01T00:00:00"));
+    upcomingDatesService.index(UCSBDate.builder().id(3L).name("undated").build());
+
+    assertEquals(1, upcomingDatesService.size());
+    assertEquals(List.of(1L), ids(upcomingDatesService.upcoming(10)));
+
+    // a date that passes after it was indexed is skipped by reads
+    upcomingDatesService.clock = Clock.fixed(LocalDateTime.parse("2022-07-01T00:00:00").toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    assertEquals(List.of(), upcomingDatesService.upcoming(10));
+    upcomingDatesService.remove(99L);
+    assertEquals(0, upcomingDatesService.size());
+  }
+}
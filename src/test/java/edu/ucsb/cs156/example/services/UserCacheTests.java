@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.User;
+
+class UserCacheTests {
+
+  AtomicLong now = new AtomicLong(0);
+  UserCache userCache;
+
+  @BeforeEach
+  void setup() {
+    userCache = new UserCache();
+    userCache.clock = now::get;
+    userCache.maxSize = 2;
+    userCache.ttlSeconds = 60;
+  }
+
+  @Test
+  void test_get_returns_cached_user_and_counts_hit() {
+    User u = User.builder().id(1L).email("a@ucsb.edu").build();
+    userCache.put("a@ucsb.edu", u);
+
+    assertSame(u, userCache.get("a@ucsb.edu").get());
+    assertEquals(1, userCache.getHits());
+    assertEquals(0, userCache.getMisses());
+  }
+
+  @Test
+  void test_get_unknown_email_counts_miss() {
+    assertFalse(userCache.get("nobody@ucsb.edu").isPresent());
+    assertFalse(userCache.get(null).isPresent());
+    assertEquals(0, userCache.getHits());
+    assertEquals(2, userCache.getMisses());
+  }
+
+  @Test
+  void test_entries_expire_after_ttl() {
+    userCache.put("a@ucsb.edu", User.builder().id(1L).build());
+
+    now.set(TimeUnit.SECONDS.toNanos(59));
+    assertTrue(userCache.get("a@ucsb.edu").isPresent());
+
+    now.set(TimeUnit.SECONDS.toNanos(60));
+    assertFalse(userCache.get("a@ucsb.edu").isPresent());
+    assertEquals(0, userCache.size());
+  }
+
+  @Test
+  void test_size_limit_evicts_soonest_expiring_entry() {
+    userCache.put("a@ucsb.edu", User.builder().id(1L).build());
+    now.set(1);
+    userCache.put("b@ucsb.edu", User.builder().id(2L).build());
+    now.set(2);
+    userCache.put("c@ucsb.edu", User.builder().id(3L).build());
+
+    assertEquals(2, userCache.size());
+    assertEquals(1, userCache.getEvictions());
+    assertFalse(userCache.get("a@ucsb.edu").isPresent());
+    assertTrue(userCache.get("b@ucsb.edu").isPresent());
+    assertTrue(userCache.get("c@ucsb.edu").isPresent());
+  }
+
+  @Test
+  void test_replacing_existing_entry_does_not_evict() {
+    userCache.put("a@ucsb.edu", User.builder().id(1L).build());
+    userCache.put("b@ucsb.edu", User.builder().id(2L).build());
+    userCache.put("b@ucsb.edu", User.builder().id(3L).build());
+
+    assertEquals(2, userCache.size());
+    assertEquals(0, userCache.getEvictions());
+    assertEquals(3L, userCache.get("b@ucsb.edu").get().getId());
+  }
+
+  @Test
+  void test_invalidate_removes_entry() {
+    userCache.put("a@ucsb.edu", User.builder().id(1L).build());
+    userCache.put("b@ucsb.edu", User.builder().id(2L).build());
+
+    userCache.invalidate("a@ucsb.edu");
+    userCache.invalidate(null);
+    assertFalse(userCache.get("a@ucsb.edu").isPresent());
+    assertTrue(userCache.get("b@ucsb.edu").isPresent());
+
+    userCache.invalidateAll();
+    assertEquals(0, userCache.size());
+  }
+
+  @Test
+  void test_getStats() {
+    userCache.put("a@ucsb.edu", User.builder().id(1L).build());
+    userCache.get("a@ucsb.edu");
+    userCache.get("b@ucsb.edu");
+
+    assertEquals(1L, userCache.getStats().get("size"));
+    assertEquals(1L, userCache.getStats().get("hits"));
+    assertEquals(1L, userCache.getStats().get("misses"));
+    assertEquals(0L, userCache.getStats().get("evictions"));
+  }
+}
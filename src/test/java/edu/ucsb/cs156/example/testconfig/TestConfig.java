@@ -3,8 +3,11 @@ package edu.ucsb.cs156.example.testconfig;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
+import edu.ucsb.cs156.example.services.AdminRoleService;
+import edu.ucsb.cs156.example.services.BulkInsertService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserCache;
 
 @TestConfiguration
 public class TestConfig {
@@ -18,4 +21,19 @@ public class TestConfig {
     public GrantedAuthoritiesService grantedAuthoritiesService() {
         return new GrantedAuthoritiesService();
     }
+
+    @Bean
+    public UserCache userCache() {
+        return new UserCache();
+    }
+
+    @Bean
+    public AdminRoleService adminRoleService() {
+        return new AdminRoleService();
+    }
+
+    @Bean
+    public BulkInsertService bulkInsertService() {
+        return new BulkInsertService();
+    }
 }